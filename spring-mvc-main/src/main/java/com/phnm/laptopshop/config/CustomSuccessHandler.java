@@ -1,6 +1,7 @@
 package com.phnm.laptopshop.config;
 
 import com.phnm.laptopshop.domain.User;
+import com.phnm.laptopshop.service.ProductService;
 import com.phnm.laptopshop.service.UserService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,6 +27,9 @@ public class CustomSuccessHandler implements AuthenticationSuccessHandler {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ProductService productService;
+
     protected String determineTargetUrl(final Authentication authentication) {
 
         Map<String, String> roleTargetUrlMap = new HashMap<>();
@@ -73,7 +77,10 @@ public class CustomSuccessHandler implements AuthenticationSuccessHandler {
         if (response.isCommitted()) {
             return;
         }
-        redirectStrategy.sendRedirect(request, response, targetUrl);
         clearAuthenticationAttributes(request, authentication);
+        // Gộp giỏ hàng của khách sau khi session đã có "id", và trước khi redirect để cookie kịp bị xóa
+        // trong cùng response
+        productService.mergeGuestCart(request, response, authentication.getName());
+        redirectStrategy.sendRedirect(request, response, targetUrl);
     }
 }
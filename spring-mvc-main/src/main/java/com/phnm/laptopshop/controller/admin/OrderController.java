@@ -2,29 +2,63 @@ package com.phnm.laptopshop.controller.admin;
 
 import com.phnm.laptopshop.domain.Order;
 import com.phnm.laptopshop.domain.OrderDetail;
+import com.phnm.laptopshop.domain.OrderSummary;
+import com.phnm.laptopshop.domain.dto.OrderCriteriaDTO;
+import com.phnm.laptopshop.domain.dto.OrderStatusTransitionDTO;
 import com.phnm.laptopshop.service.OrderService;
-import org.springframework.data.domain.Page;
+import com.phnm.laptopshop.service.checkout.OrderPipeline;
+import com.phnm.laptopshop.service.order.OrderStatusTransitions;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 public class OrderController {
 
     private final OrderService orderService;
-    public OrderController(OrderService orderService) {
+    private final boolean listingExactTotal;
+
+    public OrderController(
+            OrderService orderService,
+            @Value("${app.listing.exact-total:true}") boolean listingExactTotal) {
         this.orderService = orderService;
+        this.listingExactTotal = listingExactTotal;
     }
 
     @GetMapping("/admin/order")
     public String getOrder(
             Model model,
-            @RequestParam("page") Optional<String> pageOptional) {
+            @RequestParam("page") Optional<String> pageOptional,
+            OrderCriteriaDTO orderCriteriaDTO) {
+        model.addAttribute("statusTransitions", OrderStatusTransitions.all());
+        // Có bộ lọc hoặc con trỏ: lọc trên order_summary theo keyset
+        String filterQuery = buildFilterQuery(orderCriteriaDTO);
+        if (filterQuery != null || isPresent(orderCriteriaDTO.getCursor())) {
+            KeysetPage<OrderSummary> orderPage = orderService.getFilteredOrders(orderCriteriaDTO, 10);
+            model.addAttribute("orders", orderPage.getContent());
+            model.addAttribute("cursorMode", true);
+            model.addAttribute("nextCursor", orderPage.getNextCursor());
+            model.addAttribute("filterQuery", filterQuery == null ? "" : filterQuery + "&");
+            model.addAttribute("criteria", orderCriteriaDTO);
+            return "admin/order/index";
+        }
+
         int page = 1;
         try {
             if (pageOptional.isPresent()) {
@@ -33,15 +67,49 @@ public class OrderController {
         } catch (Exception e) {
         }
         Pageable pageable = PageRequest.of(page - 1, 10);
-        Page<Order> ordersPage = orderService.getAllOrders(pageable);
-        List<Order> orders = ordersPage.getContent();
+        Slice<OrderSummary> ordersSlice = orderService.getOrderSlice(pageable);
+        List<OrderSummary> orders = ordersSlice.getContent();
         model.addAttribute("orders", orders);
 
         model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", ordersPage.getTotalPages());
+        model.addAttribute("hasNext", ordersSlice.hasNext());
+        if (listingExactTotal) {
+            long total = orderService.countOrders();
+            model.addAttribute("totalPages", (int) Math.ceil((double) total / pageable.getPageSize()));
+        }
         return "admin/order/index";
     }
 
+    // Query string của các ô lọc đang dùng (để giữ bộ lọc khi sang trang), null nếu không lọc gì
+    private static String buildFilterQuery(OrderCriteriaDTO criteria) {
+        UriComponentsBuilder builder = UriComponentsBuilder.newInstance();
+        boolean filtered = false;
+        Map<String, Optional<String>> filters = new LinkedHashMap<>();
+        filters.put("status", criteria.getStatus());
+        filters.put("paymentMethod", criteria.getPaymentMethod());
+        filters.put("phone", criteria.getPhone());
+        filters.put("from", criteria.getFrom());
+        filters.put("to", criteria.getTo());
+        for (Map.Entry<String, Optional<String>> filter : filters.entrySet()) {
+            if (isPresent(filter.getValue())) {
+                builder.queryParam(filter.getKey(), filter.getValue().get().trim());
+                filtered = true;
+            }
+        }
+        return filtered ? builder.encode().build().getQuery() : null;
+    }
+
+    private static boolean isPresent(Optional<String> value) {
+        return value != null && value.isPresent() && !value.get().isBlank();
+    }
+
+    // Số liệu group commit: số lô, cỡ lô trung bình/lớn nhất, thời gian chờ commit trung bình/lớn nhất
+    @GetMapping("/admin/order-pipeline/metrics")
+    @ResponseBody
+    public OrderPipeline.Metrics getOrderPipelineMetrics() {
+        return orderService.getOrderPipelineMetrics();
+    }
+
     @GetMapping("/admin/order/{id}")
     public String getOrderDetail(Model model, @PathVariable long id) {
         Optional<Order> orderOptional = orderService.getOrderById(id);
@@ -61,16 +129,73 @@ public class OrderController {
         if (orderOptional.isPresent()) {
             Order order = orderOptional.get();
             model.addAttribute("order", order);
+            model.addAttribute("nextStatuses", OrderStatusTransitions.targetsOf(order.getStatus()));
         }
         return "admin/order/update";
     }
 
+    // Chỉ chuyển theo bảng OrderStatusTransitions; bước không hợp lệ thì quay lại form kèm thông báo lỗi
     @PostMapping("/admin/order/update")
-    public String updateOrder(@ModelAttribute("order") Order order) {
-        orderService.updateOrderStatus(order);
+    public String updateOrder(@ModelAttribute("order") Order order, RedirectAttributes redirectAttributes) {
+        try {
+            orderService.updateOrderStatus(order.getId(), order.getStatus());
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("updateError", e.getMessage());
+            return "redirect:/admin/order/update/" + order.getId();
+        }
+        return "redirect:/admin/order";
+    }
+
+    // Chuyển trạng thái các đơn được chọn trên trang danh sách, rồi quay lại danh sách đơn còn ở trạng thái cũ
+    @PostMapping("/admin/order/bulk-status")
+    public String bulkUpdateOrderStatus(
+            @ModelAttribute OrderStatusTransitionDTO transition,
+            RedirectAttributes redirectAttributes) {
+        int requested = transition.getIds() == null ? 0 : transition.getIds().size();
+        try {
+            int updated = orderService.transitionOrderStatus(
+                    transition.getIds(), transition.getFromStatus(), transition.getToStatus());
+            redirectAttributes.addFlashAttribute("bulkMessage",
+                    "Đã chuyển " + updated + "/" + requested + " đơn sang \"" + transition.getToStatus() + "\"");
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("bulkError", e.getMessage());
+        }
+        if (transition.getFromStatus() != null && !transition.getFromStatus().isBlank()) {
+            redirectAttributes.addAttribute("status", transition.getFromStatus());
+        }
         return "redirect:/admin/order";
     }
 
+    // Cùng thao tác cho công cụ kho: {"ids": [...], "fromStatus": "...", "toStatus": "..."} → số đơn đã chuyển
+    @PostMapping("/admin/api/order/status-transitions")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> transitionOrderStatus(@RequestBody OrderStatusTransitionDTO transition) {
+        try {
+            int updated = orderService.transitionOrderStatus(
+                    transition.getIds(), transition.getFromStatus(), transition.getToStatus());
+            return ResponseEntity.ok(Map.of("updated", updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Xóa hàng loạt đơn tạo trước ngày before (yyyy-MM-dd), ví dụ dọn đơn thử sau kiểm thử tải; ghi log người gọi
+    @PostMapping("/admin/api/order/purge")
+    @ResponseBody
+    public ResponseEntity<?> purgeOrders(@RequestParam("before") String before, Principal principal) {
+        LocalDate cutoff;
+        try {
+            cutoff = LocalDate.parse(before);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ngày không hợp lệ: " + before));
+        }
+        try {
+            return ResponseEntity.ok(orderService.purgeOrdersCreatedBefore(cutoff.atStartOfDay(), principal.getName()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/admin/order/delete/{id}")
     public String getDeleteOrderPage(Model model, @PathVariable long id) {
         Optional<Order> orderOptional = orderService.getOrderById(id);
@@ -1,9 +1,11 @@
 package com.phnm.laptopshop.controller.admin;
 
 import com.phnm.laptopshop.domain.Product;
-import com.phnm.laptopshop.repository.ProductRepository;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
 import com.phnm.laptopshop.service.ProductService;
 import com.phnm.laptopshop.service.UploadService;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
 import jakarta.validation.Valid;
 import org.eclipse.tags.shaded.org.apache.xpath.operations.Mod;
 import org.springframework.data.domain.Page;
@@ -25,18 +27,25 @@ public class ProductController {
     private final UploadService uploadService;
 
     private final ProductService productService;
-    private final ProductRepository productRepository;
 
-    public ProductController(UploadService uploadService, ProductService productService, ProductRepository productRepository) {
+    public ProductController(UploadService uploadService, ProductService productService) {
         this.uploadService = uploadService;
         this.productService = productService;
-        this.productRepository = productRepository;
     }
 
     @GetMapping("/admin/product")
     public String getProductPage(
             Model model,
-            @RequestParam("page") Optional<String> pageOptional) {
+            @RequestParam("page") Optional<String> pageOptional,
+            @RequestParam("cursor") Optional<String> cursorOptional) {
+        if (cursorOptional.isPresent()) {
+            KeysetPage<ProductCardDTO> productPage = productService.getAllProductsAfter(KeysetCursor.decode(cursorOptional.get()), 10);
+            model.addAttribute("products", productPage.getContent());
+            model.addAttribute("cursorMode", true);
+            model.addAttribute("nextCursor", productPage.getNextCursor());
+            return "admin/product/index";
+        }
+
         int page = 1;
 
         try {
@@ -46,8 +55,8 @@ public class ProductController {
         } catch (Exception e) {}
         Pageable pageable = PageRequest.of(page - 1, 10);
 
-        Page<Product> productsPage = productService.getAllProducts(pageable);
-        List<Product> products = productsPage.getContent();
+        Page<ProductCardDTO> productsPage = productService.getAllProducts(pageable);
+        List<ProductCardDTO> products = productsPage.getContent();
         model.addAttribute("products", products);
 
         model.addAttribute("currentPage", page);
@@ -108,23 +117,8 @@ public class ProductController {
             return "admin/product/update";
         }
 
-        Product currentProduct = productRepository.findProductById(product.getId());
-        if (currentProduct != null) {
-            currentProduct.setName(product.getName());
-            currentProduct.setPrice(product.getPrice());
-            currentProduct.setDetailDesc(product.getDetailDesc());
-            currentProduct.setShortDesc(product.getShortDesc());
-            currentProduct.setQuantity(product.getQuantity());
-            currentProduct.setFactory(product.getFactory());
-            currentProduct.setTarget(product.getTarget());
-
-            if (!file.isEmpty()) {
-                String fileName = uploadService.handleSaveUploadFile(file, "product_thumbnail");
-                currentProduct.setImage(fileName);
-            }
-
-            productService.saveProduct(currentProduct);
-        }
+        String image = file.isEmpty() ? null : uploadService.handleSaveUploadFile(file, "product_thumbnail");
+        productService.updateProduct(product, image);
         return "redirect:/admin/product";
     }
 
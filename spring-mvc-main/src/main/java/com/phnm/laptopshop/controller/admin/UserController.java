@@ -3,6 +3,8 @@ package com.phnm.laptopshop.controller.admin;
 import com.phnm.laptopshop.domain.User;
 import com.phnm.laptopshop.service.UploadService;
 import com.phnm.laptopshop.service.UserService;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
 import com.phnm.laptopshop.validation.CreateGroup;
 import com.phnm.laptopshop.validation.UpdateGroup;
 import jakarta.validation.Valid;
@@ -40,7 +42,16 @@ public class UserController {
     @GetMapping("/admin/user")
     public String getUserPage(
             Model model,
-            @RequestParam("page") Optional<String> pageOptional) {
+            @RequestParam("page") Optional<String> pageOptional,
+            @RequestParam("cursor") Optional<String> cursorOptional) {
+        if (cursorOptional.isPresent()) {
+            KeysetPage<User> userPage = userService.getAllUsersAfter(KeysetCursor.decode(cursorOptional.get()), 10);
+            model.addAttribute("users", userPage.getContent());
+            model.addAttribute("cursorMode", true);
+            model.addAttribute("nextCursor", userPage.getNextCursor());
+            return "admin/user/index";
+        }
+
         int page = 1;
         try {
             if (pageOptional.isPresent()) {
@@ -1,6 +1,7 @@
 package com.phnm.laptopshop.controller.client;
 
 import com.phnm.laptopshop.domain.*;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
 import com.phnm.laptopshop.domain.dto.ProductCriteriaDTO;
 import com.phnm.laptopshop.domain.dto.RegisterDTO;
 import com.phnm.laptopshop.repository.CartRepository;
@@ -8,12 +9,18 @@ import com.phnm.laptopshop.service.OrderService;
 import com.phnm.laptopshop.service.ProductService;
 import com.phnm.laptopshop.service.UserService;
 import com.phnm.laptopshop.service.VNPayService;
+import com.phnm.laptopshop.service.checkout.CheckoutBusyException;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -22,8 +29,10 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.ArrayList;
@@ -39,25 +48,26 @@ public class HomePageController {
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final VNPayService vnPayService;
+    private final boolean listingExactTotal;
 
     public HomePageController(
             ProductService productService,
             OrderService orderService,
             UserService userService,
             PasswordEncoder passwordEncoder,
-            VNPayService vnPayService) {
+            VNPayService vnPayService,
+            @Value("${app.listing.exact-total:true}") boolean listingExactTotal) {
         this.productService = productService;
         this.orderService = orderService;
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.vnPayService = vnPayService;
+        this.listingExactTotal = listingExactTotal;
     }
 
     @GetMapping("/")
     public String getHomePage(Model model) {
-        Pageable pageable = PageRequest.of(0, 8);
-        Page<Product> products = productService.getAllProducts(pageable);
-        List<Product> productList = products.getContent();
+        List<ProductCardDTO> productList = productService.getHomePageProducts();
         model.addAttribute("products", productList);
         return "client/homepage/index";
     }
@@ -101,12 +111,10 @@ public class HomePageController {
 
     @GetMapping("/cart")
     public String getCartPage(Model model, HttpServletRequest request) {
-        User currentUser = new User();
         HttpSession session = request.getSession(false);
-        long id = (long) session.getAttribute("id");
-        currentUser.setId(id);
-
-        Cart cart = productService.findCartByUser(currentUser);
+        Cart cart = session == null || session.getAttribute("id") == null
+                ? productService.getGuestCartForView(request)
+                : productService.getCartForView(session);
 
         List<CartDetail> cartDetails = cart == null ? new ArrayList<CartDetail>() : cart.getCartDetails();
 
@@ -125,12 +133,8 @@ public class HomePageController {
 
     @GetMapping("/checkout")
     public String getCheckoutPage(Model model, HttpServletRequest request) {
-        User currentUser = new User();
         HttpSession session = request.getSession(false);
-        long id = (long) session.getAttribute("id");
-        currentUser.setId(id);
-
-        Cart cart = productService.findCartByUser(currentUser);
+        Cart cart = productService.getCartForView(session);
 
         List<CartDetail> cartDetails = cart == null ? new ArrayList<CartDetail>() : cart.getCartDetails();
 
@@ -147,9 +151,9 @@ public class HomePageController {
     }
 
     @PostMapping("/confirm-checkout")
-    public String getCheckoutPage(@ModelAttribute("cart") Cart cart) {
+    public String getCheckoutPage(@ModelAttribute("cart") Cart cart, HttpServletRequest request) {
         List<CartDetail> cartDetails = cart == null ? new ArrayList<CartDetail>() : cart.getCartDetails();
-        productService.updateCartBeforeCheckout(cartDetails);
+        productService.updateCartBeforeCheckout(cartDetails, request.getSession(false));
         return "redirect:/checkout";
     }
 
@@ -159,29 +163,38 @@ public class HomePageController {
             @RequestParam("receiverName") String receiverName,
             @RequestParam("receiverAddress") String receiverAddress,
             @RequestParam("receiverPhone") String receiverPhone,
-            @RequestParam(value = "paymentMethod", required = false, defaultValue = "COD") String paymentMethod
+            @RequestParam(value = "paymentMethod", required = false, defaultValue = "COD") String paymentMethod,
+            RedirectAttributes redirectAttributes
     ) {
         HttpSession session = request.getSession(false);
         long id = (long) session.getAttribute("id");
         User currentUser = userService.getUserById(id);
         
-        // Nếu thanh toán qua VNPay
-        if ("VNPAY".equals(paymentMethod)) {
-            // Tạo đơn hàng mới với trạng thái "Chờ thanh toán"
-            Order order = orderService.createOrderForVNPay(currentUser, session, receiverName, receiverAddress, receiverPhone);
-            
-            if (order != null) {
-                // Tạo URL thanh toán VNPay và chuyển hướng
-                String paymentUrl = vnPayService.createPaymentUrl(request, order);
-                return "redirect:" + paymentUrl;
+        try {
+            // Nếu thanh toán qua VNPay
+            if ("VNPAY".equals(paymentMethod)) {
+                // Tạo đơn hàng mới với trạng thái "Chờ thanh toán"
+                Order order = orderService.createOrderForVNPay(currentUser, session, receiverName, receiverAddress, receiverPhone);
+
+                if (order != null) {
+                    // Tạo URL thanh toán VNPay và chuyển hướng
+                    String paymentUrl = vnPayService.createPaymentUrl(request, order);
+                    return "redirect:" + paymentUrl;
+                }
+
+                // Nếu không tạo được đơn hàng, quay lại trang checkout
+                return "redirect:/checkout";
             }
-            
-            // Nếu không tạo được đơn hàng, quay lại trang checkout
+
+            // Thanh toán COD (mặc định)
+            orderService.placeOrder(currentUser, session, receiverName, receiverAddress, receiverPhone);
+        } catch (OutOfStockException e) {
+            redirectAttributes.addFlashAttribute("outOfStockProduct", e.getProductName());
+            return "redirect:/checkout";
+        } catch (CheckoutBusyException e) {
+            redirectAttributes.addFlashAttribute("checkoutBusy", true);
             return "redirect:/checkout";
         }
-        
-        // Thanh toán COD (mặc định)
-        orderService.placeOrder(currentUser, session, receiverName, receiverAddress, receiverPhone);
         return "redirect:/order-success";
     }
     
@@ -195,7 +208,9 @@ public class HomePageController {
         if ("SUCCESS".equals(response.get("status"))) {
             // Thanh toán thành công
             redirectAttributes.addFlashAttribute("paymentStatus", "success");
-            redirectAttributes.addFlashAttribute("paymentMessage", "Thanh toán thành công");
+            redirectAttributes.addFlashAttribute("paymentMessage", "true".equals(response.get("stockShort"))
+                    ? "Thanh toán thành công, nhưng sản phẩm vừa hết hàng; cửa hàng sẽ liên hệ để giao bù hoặc hoàn tiền"
+                    : "Thanh toán thành công");
             
             // Xóa giỏ hàng
             HttpSession session = request.getSession(false);
@@ -231,16 +246,39 @@ public class HomePageController {
     }
 
     @GetMapping("/order-history")
-    public String getOrderHistoryPage(Model model, HttpServletRequest request) {
+    public String getOrderHistoryPage(
+            Model model,
+            HttpServletRequest request,
+            @RequestParam("page") Optional<String> pageOptional) {
         HttpSession session = request.getSession(false);
         long id = (long) session.getAttribute("id");
-        User currentUser = userService.getUserById(id);
-        List<Order> orders = orderService.getOrdersByUser(currentUser);
+        int page = 1;
+        try {
+            if (pageOptional.isPresent()) {
+                page = Math.max(1, Integer.parseInt(pageOptional.get()));
+            }
+        } catch (Exception e) {}
+
+        Slice<OrderSummary> orders = orderService.getOrderHistory(id, PageRequest.of(page - 1, 10));
 
-        model.addAttribute("orders", orders);
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("currentPage", page);
+        model.addAttribute("hasNext", orders.hasNext());
         return "client/cart/orderHistory";
     }
 
+    @GetMapping("/order-history/{orderId}")
+    public String getOrderHistoryDetailPage(Model model, HttpServletRequest request, @PathVariable long orderId) {
+        HttpSession session = request.getSession(false);
+        long id = (long) session.getAttribute("id");
+        Optional<Order> orderOptional = orderService.getOrderWithDetails(orderId, id);
+        if (orderOptional.isEmpty()) {
+            return "redirect:/order-history";
+        }
+        model.addAttribute("order", orderOptional.get());
+        return "client/cart/orderDetail";
+    }
+
     @GetMapping("/product")
     public String getProductPage(
             Model model,
@@ -262,15 +300,35 @@ public class HomePageController {
             } else if (sort.equals("gia-giam-dan")) {
                 pageable = PageRequest.of(page - 1, 3, Sort.by(Product_.PRICE).descending());
 
+            } else if (sort.equals("ban-chay")) {
+                pageable = PageRequest.of(page - 1, 3,
+                        Sort.by(Product_.SOLD).descending().and(Sort.by(Product_.ID).descending()));
+
+            } else if (sort.equals("moi-nhat")) {
+                pageable = PageRequest.of(page - 1, 3, Sort.by(Product_.ID).descending());
 
             } else {
                 pageable = PageRequest.of(page - 1, 3);
 
             }
         }
-        Page<Product> productsPage = productService.getAllProductsWithSpec(pageable, productCriteriaDTO);
+        if (productCriteriaDTO.getCursor() != null && productCriteriaDTO.getCursor().isPresent()) {
+            KeysetPage<ProductCardDTO> keysetPage = productService.getProductsWithSpecAfter(productCriteriaDTO,
+                    pageable.getSort(), KeysetCursor.decode(productCriteriaDTO.getCursor().get()), 3);
+            if (keysetPage != null) {
+                String qs = request.getQueryString() == null ? "" : request.getQueryString()
+                        .replaceAll("(^|&)(cursor|page)=[^&]*", "");
+                model.addAttribute("products", keysetPage.getContent());
+                model.addAttribute("cursorMode", true);
+                model.addAttribute("nextCursor", keysetPage.getNextCursor());
+                model.addAttribute("queryString", qs.isEmpty() || qs.startsWith("&") ? qs : "&" + qs);
+                return "client/product/list";
+            }
+        }
+
+        Slice<ProductCardDTO> productsSlice = productService.getProductSliceWithSpec(pageable, productCriteriaDTO);
 
-        List<Product> products = !productsPage.getContent().isEmpty() ? productsPage.getContent() : new ArrayList<>();
+        List<ProductCardDTO> products = !productsSlice.getContent().isEmpty() ? productsSlice.getContent() : new ArrayList<>();
 
         String qs = request.getQueryString();
         if (qs != null && !qs.isBlank()) {
@@ -279,7 +337,11 @@ public class HomePageController {
 
         model.addAttribute("products", products);
         model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", productsPage.getTotalPages());
+        model.addAttribute("hasNext", productsSlice.hasNext());
+        if (listingExactTotal) {
+            long total = productService.countProductsWithSpec(productCriteriaDTO);
+            model.addAttribute("totalPages", (int) Math.ceil((double) total / pageable.getPageSize()));
+        }
         model.addAttribute("queryString", qs);
         return "client/product/list";
     }
@@ -295,9 +357,9 @@ public class HomePageController {
         int pageIndex = Math.max(0, page - 1);
         Pageable pageable = PageRequest.of(pageIndex, 9); // Show 9 products per page
         
-        Page<Product> productsPage = productService.searchProductsByName(keyword, pageable);
+        Page<ProductCardDTO> productsPage = productService.searchProductsByName(keyword, pageable);
         
-        List<Product> products = !productsPage.getContent().isEmpty() 
+        List<ProductCardDTO> products = !productsPage.getContent().isEmpty() 
                 ? productsPage.getContent() 
                 : new ArrayList<>();
         
@@ -306,9 +368,16 @@ public class HomePageController {
         model.addAttribute("products", products);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", productsPage.getTotalPages());
+        model.addAttribute("hasNext", productsPage.hasNext());
         model.addAttribute("keyword", keyword);
         model.addAttribute("queryString", "&" + qs);
         
         return "client/product/list";
     }
+
+    @GetMapping("/search/suggest")
+    @ResponseBody
+    public List<String> suggestProducts(@RequestParam("q") String q) {
+        return productService.suggestProducts(q, 8);
+    }
 }
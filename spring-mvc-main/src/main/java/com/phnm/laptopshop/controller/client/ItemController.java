@@ -1,7 +1,9 @@
 package com.phnm.laptopshop.controller.client;
 
 import com.phnm.laptopshop.service.ProductService;
+import com.phnm.laptopshop.service.RecommendationService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,28 +16,45 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class ItemController {
 
     private final ProductService productService;
+    private final RecommendationService recommendationService;
 
-    public ItemController(ProductService productService) {
+    public ItemController(ProductService productService, RecommendationService recommendationService) {
         this.productService = productService;
+        this.recommendationService = recommendationService;
     }
 
     @GetMapping("/product/{id}")
     public String getDetailProductPage(Model model, @PathVariable("id") long id) {
         model.addAttribute("product", productService.getProductById(id));
+        model.addAttribute("alsoBought", recommendationService.getAlsoBought(id, 4));
         return "client/product/detail";
     }
 
     @PostMapping("/add-product-to-cart/{id}")
-    public String addProductToCart(@PathVariable("id") long id, HttpServletRequest request) {
+    public String addProductToCart(
+            @PathVariable("id") long id,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         HttpSession session = request.getSession(false);
+        if (isGuest(session)) {
+            productService.addProductToGuestCart(request, response, id, 1);
+            return "redirect:/";
+        }
         String email = (String) session.getAttribute("email");
         productService.addProductToCart(email, id, session, 1);
         return "redirect:/";
     }
 
     @PostMapping("/delete-cart-product/{id}")
-    public String deleteProductFromCart(@PathVariable("id") long id, HttpServletRequest request) {
+    public String deleteProductFromCart(
+            @PathVariable("id") long id,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         HttpSession session = request.getSession(false);
+        if (isGuest(session)) {
+            productService.deleteGuestCartLine(request, response, id);
+            return "redirect:/cart";
+        }
         productService.deleteCartDetail(id, session);
         return "redirect:/cart";
     }
@@ -43,11 +62,21 @@ public class ItemController {
     @PostMapping("/add-product-to-cart-from-detail")
     public String addProductToCartFromDetail(
             HttpServletRequest request,
+            HttpServletResponse response,
             @RequestParam("id") long id,
             @RequestParam("quantity") long quantity) {
         HttpSession session = request.getSession(false);
+        if (isGuest(session)) {
+            productService.addProductToGuestCart(request, response, id, quantity);
+            return "redirect:/product/" + id;
+        }
         String email = (String) session.getAttribute("email");
         productService.addProductToCart(email, id, session, quantity);
         return "redirect:/product/" + id;
     }
+
+    // Khách chưa đăng nhập dùng giỏ hàng trong cookie, không cần session
+    private boolean isGuest(HttpSession session) {
+        return session == null || session.getAttribute("id") == null;
+    }
 }
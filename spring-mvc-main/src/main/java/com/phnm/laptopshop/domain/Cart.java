@@ -3,11 +3,19 @@ package com.phnm.laptopshop.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = @Index(name = "idx_carts_updated_at", columnList = "updated_at"))
+@NamedEntityGraph(
+        name = Cart.WITH_DETAILS_AND_PRODUCTS,
+        attributeNodes = @NamedAttributeNode(value = "cartDetails", subgraph = "cartDetails"),
+        subgraphs = @NamedSubgraph(name = "cartDetails", attributeNodes = @NamedAttributeNode("product")))
 public class Cart {
+    // Nạp giỏ, các dòng và sản phẩm trong một câu JOIN (trang giỏ hàng, thanh toán, đặt hàng)
+    public static final String WITH_DETAILS_AND_PRODUCTS = "Cart.withDetailsAndProducts";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -15,13 +23,24 @@ public class Cart {
     @Min(value = 0)
     private int sum;
 
+    // Mỗi người dùng một giỏ: khóa duy nhất cho phép tạo giỏ bằng upsert
     @OneToOne
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", unique = true)
     private User user;
 
     @OneToMany(mappedBy = "cart")
     List<CartDetail> cartDetails;
 
+    // Lần cuối giỏ thay đổi, dùng để dọn giỏ bị bỏ quên (AbandonedCartSweeper)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public long getId() {
         return id;
     }
@@ -53,4 +72,12 @@ public class Cart {
     public void setCartDetails(List<CartDetail> cartDetails) {
         this.cartDetails = cartDetails;
     }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -3,7 +3,8 @@ package com.phnm.laptopshop.domain;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "cart_detail")
+@Table(name = "cart_detail", uniqueConstraints = @UniqueConstraint(
+        name = "uk_cart_detail_cart_product", columnNames = {"cart_id", "product_id"}))
 public class CartDetail {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,74 @@
+package com.phnm.laptopshop.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số lượng sản phẩm đã trừ khỏi kho cho một đơn VNPay đang chờ thanh toán.
+ * Dòng bị xóa khi thanh toán thành công (giữ nguyên số đã trừ) hoặc khi thất bại/quá hạn (cộng trả lại kho).
+ */
+@Entity
+@Table(name = "inventory_reservations", indexes = {
+        @Index(name = "idx_inventory_reservations_order", columnList = "order_id"),
+        @Index(name = "idx_inventory_reservations_expires_at", columnList = "expires_at")
+})
+public class InventoryReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long quantity;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @ManyToOne
+    @JoinColumn(name = "order_id")
+    private Order order;
+
+    @ManyToOne
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+}
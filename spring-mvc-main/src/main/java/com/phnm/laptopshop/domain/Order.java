@@ -2,10 +2,16 @@ package com.phnm.laptopshop.domain;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Đơn của một người dùng, mới nhất trước; khóa ngoại user_id dùng chung chỉ mục này
+        @Index(name = "idx_orders_user_id_id", columnList = "user_id, id DESC"),
+        // Xóa hàng loạt đơn cũ chọn theo created_at
+        @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,6 +31,10 @@ public class Order {
     private String vnpTransactionStatus; // Trạng thái giao dịch
     private String vnpOrderInfo; // Thông tin đơn hàng
 
+    // Thời điểm đặt hàng; đơn tạo trước khi có cột này để trống
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
     // userId
     @ManyToOne
     @JoinColumn(name = "user_id")
@@ -154,6 +164,21 @@ public class Order {
         this.vnpOrderInfo = vnpOrderInfo;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     @Override
     public String toString() {
         return "Order [id=" + id + ", totalPrice=" + totalPrice + "]";
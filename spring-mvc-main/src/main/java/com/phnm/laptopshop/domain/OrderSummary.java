@@ -0,0 +1,162 @@
+package com.phnm.laptopshop.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bản tóm tắt một đơn hàng cho các trang danh sách (lịch sử đơn, quản lý đơn): một dòng mỗi đơn,
+ * tính sẵn khi đặt hàng nên đọc danh sách không cần JOIN tới order_detail, products hay users.
+ * Được ghi cùng transaction với đơn và cập nhật mỗi khi trạng thái đơn đổi.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_user_id_order_id", columnList = "user_id, order_id DESC"),
+        // Lọc đơn cho admin: mỗi bộ lọc có chỉ mục kết thúc bằng order_id để phân trang keyset không phải sắp xếp lại
+        @Index(name = "idx_order_summary_status_payment", columnList = "status, payment_method, order_id DESC"),
+        @Index(name = "idx_order_summary_payment", columnList = "payment_method, order_id DESC"),
+        @Index(name = "idx_order_summary_phone", columnList = "receiver_phone, order_id DESC"),
+        @Index(name = "idx_order_summary_created_at", columnList = "created_at, order_id")
+})
+public class OrderSummary {
+
+    public static final int ITEM_NAMES_LENGTH = 500;
+
+    @Id
+    @Column(name = "order_id")
+    private long orderId;
+
+    @Column(name = "user_id")
+    private long userId;
+
+    private String receiverName;
+    private String receiverAddress;
+    private String receiverPhone;
+    private int lineCount;
+
+    // Tên sản phẩm tại thời điểm đặt, cách nhau bởi dấu phẩy, cắt ở ITEM_NAMES_LENGTH ký tự
+    @Column(length = ITEM_NAMES_LENGTH)
+    private String itemNames;
+
+    private double totalPrice;
+    private String status;
+    private String paymentMethod;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public static OrderSummary of(Order order, List<OrderDetail> orderDetails) {
+        StringBuilder itemNames = new StringBuilder();
+        for (OrderDetail orderDetail : orderDetails) {
+            if (itemNames.length() > 0) {
+                itemNames.append(", ");
+            }
+            itemNames.append(orderDetail.getProduct().getName());
+        }
+
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(order.getId());
+        summary.setUserId(order.getUser().getId());
+        summary.setReceiverName(order.getReceiverName());
+        summary.setReceiverAddress(order.getReceiverAddress());
+        summary.setReceiverPhone(order.getReceiverPhone());
+        summary.setLineCount(orderDetails.size());
+        summary.setItemNames(itemNames.length() > ITEM_NAMES_LENGTH
+                ? itemNames.substring(0, ITEM_NAMES_LENGTH)
+                : itemNames.toString());
+        summary.setTotalPrice(order.getTotalPrice());
+        summary.setStatus(order.getStatus());
+        summary.setPaymentMethod(order.getPaymentMethod());
+        summary.setCreatedAt(order.getCreatedAt());
+        return summary;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(long orderId) {
+        this.orderId = orderId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    public String getReceiverName() {
+        return receiverName;
+    }
+
+    public void setReceiverName(String receiverName) {
+        this.receiverName = receiverName;
+    }
+
+    public String getReceiverAddress() {
+        return receiverAddress;
+    }
+
+    public void setReceiverAddress(String receiverAddress) {
+        this.receiverAddress = receiverAddress;
+    }
+
+    public String getReceiverPhone() {
+        return receiverPhone;
+    }
+
+    public void setReceiverPhone(String receiverPhone) {
+        this.receiverPhone = receiverPhone;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    public String getItemNames() {
+        return itemNames;
+    }
+
+    public void setItemNames(String itemNames) {
+        this.itemNames = itemNames;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -6,7 +6,11 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 
 @Entity
-@Table(name = "products")
+// InnoDB tự nối id vào mỗi chỉ mục phụ, nên (price) và (sold) phục vụ được keyset theo (price, id) và (sold, id)
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price", columnList = "price"),
+        @Index(name = "idx_products_sold", columnList = "sold")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,6 +34,8 @@ public class Product {
     @Min(value = 1, message = "Quantity must be greater than 0")
     private long quantity;
 
+    // Chỉ được cộng dồn bằng ProductRepository.incrementSold, không ghi lại từ entity
+    @Column(updatable = false)
     private long sold;
 
     private String factory;
@@ -0,0 +1,62 @@
+package com.phnm.laptopshop.domain.dto;
+
+import java.util.Optional;
+
+public class OrderCriteriaDTO {
+
+    private Optional<String> status;
+    private Optional<String> paymentMethod;
+    private Optional<String> phone;
+    // Ngày dạng yyyy-MM-dd, tính cả hai đầu
+    private Optional<String> from;
+    private Optional<String> to;
+    private Optional<String> cursor;
+
+    public Optional<String> getStatus() {
+        return status;
+    }
+
+    public void setStatus(Optional<String> status) {
+        this.status = status;
+    }
+
+    public Optional<String> getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(Optional<String> paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public Optional<String> getPhone() {
+        return phone;
+    }
+
+    public void setPhone(Optional<String> phone) {
+        this.phone = phone;
+    }
+
+    public Optional<String> getFrom() {
+        return from;
+    }
+
+    public void setFrom(Optional<String> from) {
+        this.from = from;
+    }
+
+    public Optional<String> getTo() {
+        return to;
+    }
+
+    public void setTo(Optional<String> to) {
+        this.to = to;
+    }
+
+    public Optional<String> getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Optional<String> cursor) {
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.phnm.laptopshop.domain.dto;
+
+import java.util.List;
+
+public class OrderStatusTransitionDTO {
+
+    private List<Long> ids;
+    private String fromStatus;
+    private String toStatus;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(String fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public String getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(String toStatus) {
+        this.toStatus = toStatus;
+    }
+}
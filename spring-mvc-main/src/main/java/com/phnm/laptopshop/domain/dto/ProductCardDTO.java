@@ -0,0 +1,55 @@
+package com.phnm.laptopshop.domain.dto;
+
+/**
+ * Dạng rút gọn của Product cho các trang danh sách (thẻ sản phẩm).
+ * Không chứa detailDesc (MEDIUMTEXT), chỉ trang chi tiết mới nạp toàn bộ entity.
+ */
+public class ProductCardDTO {
+
+    private long id;
+    private String name;
+    private double price;
+    private String image;
+    private String shortDesc;
+    private String factory;
+    private long sold;
+
+    public ProductCardDTO(long id, String name, double price, String image, String shortDesc, String factory,
+                          long sold) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.image = image;
+        this.shortDesc = shortDesc;
+        this.factory = factory;
+        this.sold = sold;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public String getShortDesc() {
+        return shortDesc;
+    }
+
+    public String getFactory() {
+        return factory;
+    }
+
+    public long getSold() {
+        return sold;
+    }
+}
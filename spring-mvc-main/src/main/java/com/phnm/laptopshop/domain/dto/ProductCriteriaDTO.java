@@ -10,6 +10,7 @@ public class ProductCriteriaDTO {
     private Optional<List<String>> target;
     private Optional<List<String>> price;
     private Optional<String> sort;
+    private Optional<String> cursor;
 
     public Optional<String> getPage() {
         return page;
@@ -50,4 +51,12 @@ public class ProductCriteriaDTO {
     public void setSort(Optional<String> sort) {
         this.sort = sort;
     }
+
+    public Optional<String> getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Optional<String> cursor) {
+        this.cursor = cursor;
+    }
 }
@@ -0,0 +1,47 @@
+package com.phnm.laptopshop.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Các thao tác theo lô trên cart_detail mà Spring Data JPA không làm được trong một lượt gửi JDBC.
+ */
+@Repository
+public class CartDetailJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartDetailJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Cộng nhiều dòng (id sản phẩm → số lượng) vào một giỏ bằng một lô upsert,
+     * dựa trên khóa duy nhất (cart_id, product_id); sản phẩm không còn tồn tại bị bỏ qua.
+     */
+    public void upsertQuantities(long cartId, Map<Long, Long> quantities) {
+        List<Map.Entry<Long, Long>> lines = new ArrayList<>(quantities.entrySet());
+        jdbcTemplate.batchUpdate(
+                "insert into cart_detail (cart_id, product_id, quantity, price) "
+                        + "select ?, p.id, ?, p.price from products p where p.id = ? "
+                        + "on duplicate key update cart_detail.quantity = cart_detail.quantity + values(quantity)",
+                lines, lines.size(), (ps, line) -> {
+                    ps.setLong(1, cartId);
+                    ps.setLong(2, line.getValue());
+                    ps.setLong(3, line.getKey());
+                });
+    }
+
+    // Đếm lại số dòng của giỏ sau khi gộp, trả về giá trị sum mới
+    public int refreshSum(long cartId) {
+        jdbcTemplate.update(
+                "update carts set sum = (select count(*) from cart_detail where cart_id = ?), updated_at = now() "
+                        + "where id = ?",
+                cartId, cartId);
+        return jdbcTemplate.queryForObject("select sum from carts where id = ?", Integer.class, cartId);
+    }
+}
@@ -4,11 +4,45 @@ import com.phnm.laptopshop.domain.Cart;
 import com.phnm.laptopshop.domain.CartDetail;
 import com.phnm.laptopshop.domain.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface CartDetailRepository extends JpaRepository<CartDetail, Long> {
     boolean existsByCartAndProduct(Cart cart, Product product);
 
     CartDetail findByCartAndProduct(Cart cart, Product product);
+
+    // Chỉ trả về các dòng thuộc giỏ của userId, dòng của người khác bị bỏ qua
+    @Query("select cd from CartDetail cd where cd.id in :ids and cd.cart.user.id = :userId")
+    List<CartDetail> findAllByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") long userId);
+
+    /**
+     * Thêm sản phẩm vào giỏ bằng một câu lệnh, dựa trên khóa duy nhất (cart_id, product_id).
+     * MySQL trả về 1 khi chèn dòng mới, 2 khi đã có dòng và chỉ cộng số lượng, 0 khi sản phẩm không tồn tại.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into cart_detail (cart_id, product_id, quantity, price) "
+            + "select :cartId, p.id, :quantity, p.price from products p where p.id = :productId "
+            + "on duplicate key update cart_detail.quantity = cart_detail.quantity + :quantity",
+            nativeQuery = true)
+    int upsertQuantity(@Param("cartId") long cartId, @Param("productId") long productId,
+                       @Param("quantity") long quantity);
+
+    // Xóa mọi dòng của một giỏ bằng một câu DELETE, không nạp entity
+    @Transactional
+    @Modifying
+    @Query("delete from CartDetail cd where cd.cart.id = :cartId")
+    int deleteAllByCartId(@Param("cartId") long cartId);
+
+    // Từng dòng (product_id, quantity) trong giỏ của userId, không nạp entity
+    @Query("select cd.product.id, cd.quantity from CartDetail cd where cd.cart.user.id = :userId")
+    List<Object[]> findQuantitiesByUserId(@Param("userId") long userId);
 }
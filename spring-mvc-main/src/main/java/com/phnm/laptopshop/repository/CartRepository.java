@@ -2,10 +2,56 @@ package com.phnm.laptopshop.repository;
 
 import com.phnm.laptopshop.domain.Cart;
 import com.phnm.laptopshop.domain.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Cart findByUser(User user);
+
+    @EntityGraph(Cart.WITH_DETAILS_AND_PRODUCTS)
+    @Query("select c from Cart c where c.user.id = :userId")
+    Cart findWithDetailsByUserId(@Param("userId") long userId);
+
+    @Query("select c.id from Cart c where c.user.id = :userId")
+    Long findIdByUserId(@Param("userId") long userId);
+
+    // Tạo giỏ rỗng nếu người dùng chưa có; trùng khóa duy nhất user_id thì giữ giỏ hiện có
+    @Transactional
+    @Modifying
+    @Query(value = "insert into carts (user_id, sum, updated_at) values (:userId, 0, now()) "
+            + "on duplicate key update updated_at = now()",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") long userId);
+
+    // Đọc khóa (không theo snapshot), thấy cả giỏ do transaction khác vừa tạo
+    @Query(value = "select id from carts where user_id = :userId for update", nativeQuery = true)
+    Long lockIdByUserId(@Param("userId") long userId);
+
+    // Chạm updatedAt và khóa dòng giỏ trước khi ghi dòng giỏ; 0 nếu giỏ vừa bị bộ dọn giỏ xóa
+    @Transactional
+    @Modifying
+    @Query("update Cart c set c.updatedAt = current_timestamp where c.id = :id")
+    int touch(@Param("id") long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Cart c set c.updatedAt = current_timestamp where c.user.id = :userId")
+    int touchByUserId(@Param("userId") long userId);
+
+    @Transactional
+    @Modifying
+    @Query("update Cart c set c.sum = c.sum + :delta, c.updatedAt = current_timestamp where c.id = :id")
+    int addToSum(@Param("id") long id, @Param("delta") int delta);
+
+    // Gọi sau deleteAllByCartId; liên kết User.cart nằm ở carts.user_id nên không cần cập nhật users
+    @Transactional
+    @Modifying
+    @Query("delete from Cart c where c.id = :id")
+    int deleteCartById(@Param("id") long id);
 }
@@ -0,0 +1,33 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.OrderDetail;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Chèn dòng đơn hàng theo lô. OrderDetail dùng id IDENTITY nên Hibernate phải chèn từng dòng để lấy khóa,
+ * không gộp lô được; ở đây khóa sinh ra không cần dùng lại nên gửi cả đơn trong một lượt.
+ */
+@Repository
+public class OrderDetailJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderDetailJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Đơn của mỗi dòng phải đã được chèn (có id); các dòng có thể thuộc nhiều đơn khác nhau
+    public void insertAll(List<OrderDetail> orderDetails) {
+        jdbcTemplate.batchUpdate(
+                "insert into order_detail (order_id, product_id, quantity, price) values (?, ?, ?, ?)",
+                orderDetails, orderDetails.size(), (ps, orderDetail) -> {
+                    ps.setLong(1, orderDetail.getOrder().getId());
+                    ps.setLong(2, orderDetail.getProduct().getId());
+                    ps.setLong(3, orderDetail.getQuantity());
+                    ps.setDouble(4, orderDetail.getPrice());
+                });
+    }
+}
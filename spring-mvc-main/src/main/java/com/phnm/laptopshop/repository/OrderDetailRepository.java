@@ -1,9 +1,18 @@
 package com.phnm.laptopshop.repository;
 
 import com.phnm.laptopshop.domain.OrderDetail;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
+    // Từng dòng (order_id, product_id) theo thứ tự đơn hàng, dùng để dựng lại ma trận mua cùng theo lô
+    @Query("select od.order.id, od.product.id from OrderDetail od "
+            + "where od.order.id > :orderId order by od.order.id asc")
+    List<Object[]> findBasketLinesAfter(@Param("orderId") long orderId, Pageable pageable);
 }
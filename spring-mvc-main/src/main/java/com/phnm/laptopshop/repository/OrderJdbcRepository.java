@@ -0,0 +1,92 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.Order;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chèn nhiều đơn hàng trong một lô JDBC (một câu INSERT nhiều dòng khi bật rewriteBatchedStatements)
+ * và gán lại id sinh ra cho từng Order, dùng cho group commit của OrderPipeline.
+ * Xóa đơn theo tập id: mỗi bảng một câu DELETE ... IN (...), không nạp entity.
+ */
+@Repository
+public class OrderJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public OrderJdbcRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public void insertAll(List<Order> orders) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "insert into orders (user_id, total_price, receiver_name, receiver_address, receiver_phone, "
+                                + "status, payment_method, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setLong(1, order.getUser().getId());
+                        ps.setDouble(2, order.getTotalPrice());
+                        ps.setString(3, order.getReceiverName());
+                        ps.setString(4, order.getReceiverAddress());
+                        ps.setString(5, order.getReceiverPhone());
+                        ps.setString(6, order.getStatus());
+                        ps.setString(7, order.getPaymentMethod());
+                        ps.setTimestamp(8, Timestamp.valueOf(order.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    // Id các đơn tạo trước cutoff, cũ nhất trước, đọc theo chỉ mục orders.created_at
+    public List<Long> findIdsCreatedBefore(LocalDateTime cutoff, int limit) {
+        return namedJdbcTemplate.queryForList(
+                "select id from orders where created_at < :cutoff order by created_at limit :limit",
+                new MapSqlParameterSource().addValue("cutoff", cutoff).addValue("limit", limit), Long.class);
+    }
+
+    /**
+     * Xóa dòng đơn, dòng order_summary rồi tới đơn. Dòng inventory_reservations phải được trả kho trước
+     * (InventoryService.releaseAll) trong cùng transaction. Trả về {số đơn, số dòng đơn} đã xóa.
+     */
+    public int[] deleteAll(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new int[]{0, 0};
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", orderIds);
+        int orderDetails = namedJdbcTemplate.update("delete from order_detail where order_id in (:ids)", ids);
+        namedJdbcTemplate.update("delete from order_summary where order_id in (:ids)", ids);
+        int orders = namedJdbcTemplate.update("delete from orders where id in (:ids)", ids);
+        return new int[]{orders, orderDetails};
+    }
+}
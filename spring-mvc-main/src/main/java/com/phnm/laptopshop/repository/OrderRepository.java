@@ -1,17 +1,38 @@
 package com.phnm.laptopshop.repository;
 
 import com.phnm.laptopshop.domain.Order;
-import com.phnm.laptopshop.domain.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findOrderByUser(User user);
-
     Page<Order> findAll(Pageable pageable);
+
+    // Một đơn của người dùng cùng dòng đơn và sản phẩm trong một câu JOIN, đọc theo khóa chính
+    @Query("select o from Order o left join fetch o.orderDetails od left join fetch od.product "
+            + "where o.id = :id and o.user.id = :userId")
+    Optional<Order> findWithDetailsByIdAndUserId(@Param("id") long id, @Param("userId") long userId);
+
+    // Chỉ đổi đơn còn ở trạng thái from, trả về số dòng thực sự được cập nhật
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.status = :to where o.id in :ids and o.status = :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+
+    // Callback VNPay thất bại chỉ được ghi vào đơn còn chờ thanh toán
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.vnpTxnRef = :txnRef, o.vnpTransactionStatus = :transactionStatus "
+            + "where o.id = :id and o.status = :pending")
+    int recordFailedPayment(@Param("id") long id, @Param("txnRef") String txnRef,
+                            @Param("transactionStatus") String transactionStatus, @Param("pending") String pending);
 }
@@ -0,0 +1,60 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.OrderSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Ghi order_summary theo lô: chèn cùng lô đơn vừa đặt, và dựng bù cho các đơn có trước bảng tóm tắt.
+ */
+@Repository
+public class OrderSummaryJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderSummaryJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<OrderSummary> summaries) {
+        jdbcTemplate.batchUpdate(
+                "insert into order_summary (order_id, user_id, receiver_name, receiver_address, receiver_phone, "
+                        + "line_count, item_names, total_price, status, payment_method, created_at) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                summaries, summaries.size(), (ps, summary) -> {
+                    ps.setLong(1, summary.getOrderId());
+                    ps.setLong(2, summary.getUserId());
+                    ps.setString(3, summary.getReceiverName());
+                    ps.setString(4, summary.getReceiverAddress());
+                    ps.setString(5, summary.getReceiverPhone());
+                    ps.setInt(6, summary.getLineCount());
+                    ps.setString(7, summary.getItemNames());
+                    ps.setDouble(8, summary.getTotalPrice());
+                    ps.setString(9, summary.getStatus());
+                    ps.setString(10, summary.getPaymentMethod());
+                    ps.setTimestamp(11, summary.getCreatedAt() == null ? null : Timestamp.valueOf(summary.getCreatedAt()));
+                });
+    }
+
+    /**
+     * Dựng tóm tắt cho tối đa limit đơn chưa có dòng order_summary; trả về số dòng đã chèn.
+     */
+    public int backfill(int limit) {
+        return jdbcTemplate.update(
+                "insert into order_summary (order_id, user_id, receiver_name, receiver_address, receiver_phone, "
+                        + "line_count, item_names, total_price, status, payment_method, created_at) "
+                        + "select o.id, o.user_id, o.receiver_name, o.receiver_address, o.receiver_phone, "
+                        + "count(od.id), left(coalesce(group_concat(p.name order by od.id separator ', '), ''), "
+                        + OrderSummary.ITEM_NAMES_LENGTH + "), "
+                        + "o.total_price, o.status, o.payment_method, o.created_at "
+                        + "from orders o "
+                        + "left join order_detail od on od.order_id = o.id "
+                        + "left join products p on p.id = od.product_id "
+                        + "where not exists (select 1 from order_summary s where s.order_id = o.id) "
+                        + "group by o.id order by o.id limit ?",
+                limit);
+    }
+}
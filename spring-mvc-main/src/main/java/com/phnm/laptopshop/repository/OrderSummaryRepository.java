@@ -0,0 +1,34 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long>,
+        JpaSpecificationExecutor<OrderSummary> {
+    // Lịch sử đơn của một người dùng, đọc theo chỉ mục (user_id, order_id DESC)
+    Slice<OrderSummary> findByUserIdOrderByOrderIdDesc(long userId, Pageable pageable);
+
+    // Trả về Slice: Spring Data lấy size + 1 dòng để biết còn trang sau, không chạy câu COUNT
+    Slice<OrderSummary> findSliceBy(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OrderSummary s set s.status = :status where s.orderId = :orderId")
+    int updateStatus(@Param("orderId") long orderId, @Param("status") String status);
+
+    @Transactional
+    @Modifying
+    @Query("update OrderSummary s set s.status = :to where s.orderId in :ids and s.status = :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+}
@@ -1,18 +1,94 @@
 package com.phnm.laptopshop.repository;
 
 import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
+    // Chỉ chọn các cột của thẻ sản phẩm, không kéo detailDesc (MEDIUMTEXT) về
+    String SELECT_CARD = "select new com.phnm.laptopshop.domain.dto.ProductCardDTO("
+            + "p.id, p.name, p.price, p.image, p.shortDesc, p.factory, p.sold) from Product p ";
+
     Product findProductById(long id);
 
     Page<Product> findAll(Pageable page);
 
     Page<Product> findAll(Specification<Product> spec, Pageable page);
+
+    @Query(value = SELECT_CARD, countQuery = "select count(p) from Product p")
+    Page<ProductCardDTO> findAllCards(Pageable page);
+
+    @Query(SELECT_CARD + "where p.id in :ids")
+    List<ProductCardDTO> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Phân trang keyset: trả về List nên Spring Data không chạy thêm câu COUNT
+    @Query(SELECT_CARD + "where p.id > :id order by p.id asc")
+    List<ProductCardDTO> findCardsAfterId(@Param("id") long id, Pageable page);
+
+    @Query(SELECT_CARD + "where p.id < :id order by p.id desc")
+    List<ProductCardDTO> findCardsBeforeId(@Param("id") long id, Pageable page);
+
+    @Query(SELECT_CARD + "where p.sold < :sold or (p.sold = :sold and p.id < :id) "
+            + "order by p.sold desc, p.id desc")
+    List<ProductCardDTO> findNextBySoldDesc(@Param("sold") long sold, @Param("id") long id, Pageable page);
+
+    @Query(SELECT_CARD + "where p.price > :price or (p.price = :price and p.id > :id) "
+            + "order by p.price asc, p.id asc")
+    List<ProductCardDTO> findNextByPriceAsc(@Param("price") double price, @Param("id") long id, Pageable page);
+
+    @Query(SELECT_CARD + "where p.price < :price or (p.price = :price and p.id < :id) "
+            + "order by p.price desc, p.id desc")
+    List<ProductCardDTO> findNextByPriceDesc(@Param("price") double price, @Param("id") long id, Pageable page);
+
+    // Cộng dồn trực tiếp trên DB để hai đơn cùng lúc không ghi đè số đã bán của nhau
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.sold = p.sold + :quantity where p.id = :id")
+    int incrementSold(@Param("id") long id, @Param("quantity") long quantity);
+
+    // Trừ kho có điều kiện: trả về 0 nếu không đủ hàng, không cần đọc trước rồi ghi lại
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.quantity = p.quantity - :quantity where p.id = :id and p.quantity >= :quantity")
+    int reserveStock(@Param("id") long id, @Param("quantity") long quantity);
+
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.quantity = p.quantity + :quantity where p.id = :id")
+    int releaseStock(@Param("id") long id, @Param("quantity") long quantity);
+
+    // Form sửa sản phẩm chỉ ghi các cột admin sửa được; sold do đơn hàng cộng dồn nên không bao giờ bị ghi đè.
+    // image null thì giữ ảnh cũ
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.name = :#{#product.name}, p.price = :#{#product.price}, "
+            + "p.detailDesc = :#{#product.detailDesc}, p.shortDesc = :#{#product.shortDesc}, "
+            + "p.quantity = :#{#product.quantity}, p.factory = :#{#product.factory}, p.target = :#{#product.target}, "
+            + "p.image = coalesce(:image, p.image) where p.id = :#{#product.id}")
+    int updateDetails(@Param("product") Product product, @Param("image") String image);
+
+    @Query("select p.quantity from Product p where p.id = :id")
+    Long findQuantityById(@Param("id") long id);
+
+    // Từng dòng (id, quantity) của các sản phẩm bán chạy nhất
+    @Query("select p.id, p.quantity from Product p order by p.sold desc, p.id desc")
+    List<Object[]> findStockOfBestSellers(Pageable pageable);
+
+    // Từng dòng (id, name, quantity), dùng để cấp vé mua cho các sản phẩm flash sale
+    @Query("select p.id, p.name, p.quantity from Product p where p.id in :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
 }
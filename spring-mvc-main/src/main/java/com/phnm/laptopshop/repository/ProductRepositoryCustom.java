@@ -0,0 +1,14 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ProductRepositoryCustom {
+    Page<ProductCardDTO> findCards(Specification<Product> spec, Pageable page);
+
+    Slice<ProductCardDTO> findCardSlice(Specification<Product> spec, Pageable page);
+}
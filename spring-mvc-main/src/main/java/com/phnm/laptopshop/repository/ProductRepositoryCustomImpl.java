@@ -0,0 +1,79 @@
+package com.phnm.laptopshop.repository;
+
+import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.Product_;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * JpaSpecificationExecutor luôn trả về entity đầy đủ, nên truy vấn thẻ sản phẩm theo Specification
+ * được viết tay bằng Criteria API với constructor expression.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductCardDTO> findCards(Specification<Product> spec, Pageable page) {
+        List<ProductCardDTO> content = selectCards(spec, page, page.getPageSize());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Product> countRoot = countQuery.from(Product.class);
+        countQuery.select(cb.count(countRoot));
+        Predicate countPredicate = spec == null ? null : spec.toPredicate(countRoot, countQuery, cb);
+        if (countPredicate != null) {
+            countQuery.where(countPredicate);
+        }
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+
+        return new PageImpl<>(content, page, total);
+    }
+
+    // Lấy size + 1 dòng để biết còn trang sau, không chạy câu COUNT
+    @Override
+    public Slice<ProductCardDTO> findCardSlice(Specification<Product> spec, Pageable page) {
+        List<ProductCardDTO> rows = selectCards(spec, page, page.getPageSize() + 1);
+        boolean hasNext = rows.size() > page.getPageSize();
+        List<ProductCardDTO> content = hasNext ? rows.subList(0, page.getPageSize()) : rows;
+        return new SliceImpl<>(content, page, hasNext);
+    }
+
+    private List<ProductCardDTO> selectCards(Specification<Product> spec, Pageable page, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<ProductCardDTO> query = cb.createQuery(ProductCardDTO.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.construct(ProductCardDTO.class,
+                root.get(Product_.id), root.get(Product_.name), root.get(Product_.price),
+                root.get(Product_.image), root.get(Product_.shortDesc), root.get(Product_.factory),
+                root.get(Product_.sold)));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (page.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(page.getSort(), root, cb));
+        }
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
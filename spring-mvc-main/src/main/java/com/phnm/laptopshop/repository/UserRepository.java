@@ -5,6 +5,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
     User save(User newUser);
 
@@ -17,4 +19,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     Page<User> findAll(Pageable pageable);
+
+    // Phân trang keyset: trả về List nên Spring Data không chạy thêm câu COUNT
+    List<User> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
 }
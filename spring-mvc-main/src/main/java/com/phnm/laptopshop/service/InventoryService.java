@@ -0,0 +1,214 @@
+package com.phnm.laptopshop.service;
+
+import com.phnm.laptopshop.domain.Order;
+import com.phnm.laptopshop.domain.OrderDetail;
+import com.phnm.laptopshop.repository.ProductRepository;
+import com.phnm.laptopshop.service.checkout.CheckoutAdmission;
+import com.phnm.laptopshop.service.inventory.HotStock;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trừ kho khi đặt hàng bằng UPDATE có điều kiện (quantity >= n), không đọc rồi ghi lại.
+ * Đơn VNPay còn giữ dòng inventory_reservations đến khi thanh toán xong; thất bại hoặc quá hạn thì cộng trả kho.
+ */
+@Service
+public class InventoryService {
+
+    static final int EXPIRE_BATCH_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HotStock hotStock;
+    private final CheckoutAdmission checkoutAdmission;
+    private final long reservationTtlMinutes;
+
+    public InventoryService(
+            ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            HotStock hotStock,
+            CheckoutAdmission checkoutAdmission,
+            @Value("${app.inventory.reservation-ttl-minutes:15}") long reservationTtlMinutes) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.hotStock = hotStock;
+        this.checkoutAdmission = checkoutAdmission;
+        this.reservationTtlMinutes = reservationTtlMinutes;
+    }
+
+    /**
+     * Trừ kho cho các dòng đơn, phải gọi trong transaction đặt hàng: thiếu hàng ở một dòng thì các dòng trước rollback theo.
+     * Không tự mở transaction, để OutOfStockException chỉ rollback tới savepoint của người gọi (group commit)
+     * thay vì đánh dấu rollback cả transaction.
+     * Dòng được trừ theo id sản phẩm tăng dần để hai đơn có sản phẩm chung khóa dòng products cùng thứ tự, không deadlock.
+     * Dòng có số lượng dưới 1 làm cả đơn bị từ chối bằng IllegalArgumentException trước khi trừ dòng nào.
+     */
+    public void reserve(List<OrderDetail> orderDetails) {
+        List<OrderDetail> lines = new ArrayList<>(orderDetails);
+        lines.sort(Comparator.comparingLong(orderDetail -> orderDetail.getProduct().getId()));
+
+        for (OrderDetail line : lines) {
+            if (line.getQuantity() < 1) {
+                // UPDATE có điều kiện không chặn được số âm: quantity - (-n) là cộng kho
+                throw new IllegalArgumentException("Invalid quantity " + line.getQuantity()
+                        + " for product " + line.getProduct().getId());
+            }
+        }
+        for (OrderDetail line : lines) {
+            long productId = line.getProduct().getId();
+            if (!hotStock.mightHave(productId, line.getQuantity())) {
+                throw new OutOfStockException(line.getProduct().getName());
+            }
+            if (productRepository.reserveStock(productId, line.getQuantity()) == 0) {
+                // Bộ đếm còn hàng nhưng DB hết: bộ đếm đã lệch (admin sửa kho, chưa tới lần làm mới)
+                Long quantity = productRepository.findQuantityById(productId);
+                hotStock.reset(productId, quantity == null ? 0 : quantity);
+                throw new OutOfStockException(line.getProduct().getName());
+            }
+        }
+        // Chỉ trừ bộ đếm khi đơn đã commit, rollback thì không cần cộng trả
+        afterCommit(() -> {
+            for (OrderDetail line : lines) {
+                hotStock.take(line.getProduct().getId(), line.getQuantity());
+            }
+        });
+    }
+
+    // Ghi lại số đã trừ cho đơn chờ thanh toán, gọi sau reserve trong cùng transaction
+    public void hold(long orderId, List<OrderDetail> orderDetails) {
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusMinutes(reservationTtlMinutes));
+        jdbcTemplate.batchUpdate(
+                "insert into inventory_reservations (order_id, product_id, quantity, expires_at) values (?, ?, ?, ?)",
+                orderDetails, orderDetails.size(), (ps, orderDetail) -> {
+                    ps.setLong(1, orderId);
+                    ps.setLong(2, orderDetail.getProduct().getId());
+                    ps.setLong(3, orderDetail.getQuantity());
+                    ps.setTimestamp(4, expiresAt);
+                });
+    }
+
+    /**
+     * Thanh toán thành công: bỏ dòng giữ hàng, số đã trừ thành số bán. Nếu giữ hàng đã quá hạn và được trả kho
+     * trước khi VNPay báo về thì trừ kho lại; phải gọi trong transaction của callback, hết hàng thì ném
+     * OutOfStockException để người gọi rollback phần đã trừ và đánh dấu đơn.
+     */
+    public void confirm(Order order) {
+        int deleted = jdbcTemplate.update("delete from inventory_reservations where order_id = ?", order.getId());
+        if (deleted == 0) {
+            reserve(order.getOrderDetails());
+        }
+    }
+
+    /**
+     * Cộng trả kho của đơn chưa thanh toán. Dòng giữ hàng được khóa FOR UPDATE trước khi xóa,
+     * nên callback thất bại và job hết hạn chạy cùng lúc cũng chỉ trả kho một lần.
+     */
+    public void release(long orderId) {
+        transactionTemplate.executeWithoutResult(status -> releaseAll(List.of(orderId)));
+    }
+
+    /**
+     * Như release cho nhiều đơn, phải gọi trong transaction của người gọi (xóa đơn hàng loạt).
+     * Số lượng được cộng dồn theo sản phẩm và trả kho theo id tăng dần, như reserve, để không deadlock.
+     */
+    public void releaseAll(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("orderIds", orderIds);
+        Map<Long, Long> quantities = new TreeMap<>();
+        namedJdbcTemplate.query(
+                "select product_id, quantity from inventory_reservations where order_id in (:orderIds) for update",
+                params, rs -> {
+                    quantities.merge(rs.getLong(1), rs.getLong(2), Long::sum);
+                });
+        if (quantities.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+            productRepository.releaseStock(line.getKey(), line.getValue());
+        }
+        namedJdbcTemplate.update("delete from inventory_reservations where order_id in (:orderIds)", params);
+        afterCommit(() -> {
+            for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+                hotStock.give(line.getKey(), line.getValue());
+                checkoutAdmission.returnTokens(line.getKey(), line.getValue());
+            }
+        });
+    }
+
+    /**
+     * Cộng trả kho cho đơn đã chốt bị hủy (COD hoặc đã thanh toán), phải gọi trong transaction của người gọi.
+     * Đơn này không còn dòng giữ hàng nên trả theo dòng đơn, cộng dồn theo sản phẩm và theo id tăng dần như releaseAll.
+     */
+    public void restock(List<OrderDetail> orderDetails) {
+        Map<Long, Long> quantities = new TreeMap<>();
+        for (OrderDetail orderDetail : orderDetails) {
+            quantities.merge(orderDetail.getProduct().getId(), orderDetail.getQuantity(), Long::sum);
+        }
+        for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+            productRepository.releaseStock(line.getKey(), line.getValue());
+        }
+        afterCommit(() -> {
+            for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+                hotStock.give(line.getKey(), line.getValue());
+                checkoutAdmission.returnTokens(line.getKey(), line.getValue());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.expire-check-ms:60000}")
+    public void releaseExpired() {
+        int released = 0;
+        List<Long> orderIds;
+        do {
+            orderIds = jdbcTemplate.queryForList(
+                    "select distinct order_id from inventory_reservations where expires_at < now() limit ?",
+                    Long.class, EXPIRE_BATCH_SIZE);
+            for (Long orderId : orderIds) {
+                release(orderId);
+            }
+            released += orderIds.size();
+        } while (orderIds.size() == EXPIRE_BATCH_SIZE);
+
+        if (released > 0) {
+            log.info("Released expired stock reservations of {} orders", released);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
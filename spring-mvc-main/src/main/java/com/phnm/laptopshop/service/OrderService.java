@@ -1,69 +1,351 @@
 package com.phnm.laptopshop.service;
 
 import com.phnm.laptopshop.domain.*;
+import com.phnm.laptopshop.domain.dto.OrderCriteriaDTO;
 import com.phnm.laptopshop.repository.*;
+import com.phnm.laptopshop.service.cart.CartWriteBehind;
+import com.phnm.laptopshop.service.cart.SessionCart;
+import com.phnm.laptopshop.service.checkout.CheckoutAdmission;
+import com.phnm.laptopshop.service.checkout.DuplicateOrderException;
+import com.phnm.laptopshop.service.checkout.OrderCommand;
+import com.phnm.laptopshop.service.checkout.OrderPipeline;
+import com.phnm.laptopshop.service.order.OrderStatusTransitions;
+import com.phnm.laptopshop.service.pagination.CountCache;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
+import com.phnm.laptopshop.service.specification.OrderSummarySpecs;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class OrderService {
 
+    private static final String ORDER_COUNT_KEY = "order";
+    private static final long ORDER_COUNT_TTL_MILLIS = 30 * 1000;
+    private static final int BACKFILL_CHUNK_SIZE = 1000;
+    static final int MAX_BULK_TRANSITION = 1000;
+    static final int PURGE_CHUNK_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
-    private final OrderDetailRepository orderDetailRepository;
     private final CartDetailRepository cartDetailRepository;
+    private final CountCache countCache;
+    private final ProductService productService;
+    private final RecommendationService recommendationService;
+    private final CartWriteBehind cartWriteBehind;
+    private final OrderDetailJdbcRepository orderDetailJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryService inventoryService;
+    private final CheckoutAdmission checkoutAdmission;
+    private final OrderJdbcRepository orderJdbcRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderSummaryJdbcRepository orderSummaryJdbcRepository;
+    private final boolean orderPipelineEnabled;
+    private final int orderPipelineQueueCapacity;
+    private final int orderPipelineMaxBatchSize;
+    private final long orderPipelineLingerMillis;
+    private final boolean orderSummaryBackfill;
+    private final int orderPurgeMinAgeDays;
+    // null khi tắt app.order-pipeline.enabled: mỗi đơn tự commit trong transaction riêng
+    private OrderPipeline orderPipeline;
 
     public OrderService(
             UserRepository userRepository,
             CartRepository cartRepository,
             OrderRepository orderRepository,
-            OrderDetailRepository orderDetailRepository,
-            CartDetailRepository cartDetailRepository) {
+            CartDetailRepository cartDetailRepository,
+            CountCache countCache,
+            ProductService productService,
+            RecommendationService recommendationService,
+            CartWriteBehind cartWriteBehind,
+            OrderDetailJdbcRepository orderDetailJdbcRepository,
+            TransactionTemplate transactionTemplate,
+            InventoryService inventoryService,
+            CheckoutAdmission checkoutAdmission,
+            OrderJdbcRepository orderJdbcRepository,
+            OrderSummaryRepository orderSummaryRepository,
+            OrderSummaryJdbcRepository orderSummaryJdbcRepository,
+            @Value("${app.order-pipeline.enabled:false}") boolean orderPipelineEnabled,
+            @Value("${app.order-pipeline.queue-capacity:1000}") int orderPipelineQueueCapacity,
+            @Value("${app.order-pipeline.max-batch-size:50}") int orderPipelineMaxBatchSize,
+            @Value("${app.order-pipeline.linger-ms:5}") long orderPipelineLingerMillis,
+            @Value("${app.order-summary.backfill:true}") boolean orderSummaryBackfill,
+            @Value("${app.order-purge.min-age-days:30}") int orderPurgeMinAgeDays) {
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.orderRepository = orderRepository;
-        this.orderDetailRepository = orderDetailRepository;
         this.cartDetailRepository = cartDetailRepository;
+        this.countCache = countCache;
+        this.productService = productService;
+        this.recommendationService = recommendationService;
+        this.cartWriteBehind = cartWriteBehind;
+        this.orderDetailJdbcRepository = orderDetailJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.inventoryService = inventoryService;
+        this.checkoutAdmission = checkoutAdmission;
+        this.orderJdbcRepository = orderJdbcRepository;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.orderSummaryJdbcRepository = orderSummaryJdbcRepository;
+        this.orderPipelineEnabled = orderPipelineEnabled;
+        this.orderPipelineQueueCapacity = orderPipelineQueueCapacity;
+        this.orderPipelineMaxBatchSize = orderPipelineMaxBatchSize;
+        this.orderPipelineLingerMillis = orderPipelineLingerMillis;
+        this.orderSummaryBackfill = orderSummaryBackfill;
+        this.orderPurgeMinAgeDays = orderPurgeMinAgeDays;
+    }
+
+    // Luồng ghi chỉ chạy khi bean đã dựng xong, để commitBatch không thấy một OrderService dựng dở
+    @PostConstruct
+    public void startOrderPipeline() {
+        if (orderPipelineEnabled) {
+            orderPipeline = new OrderPipeline(this::commitBatch, orderPipelineQueueCapacity,
+                    orderPipelineMaxBatchSize, orderPipelineLingerMillis);
+            orderPipeline.start();
+        }
+    }
+
+    @PreDestroy
+    public void stopOrderPipeline() throws InterruptedException {
+        if (orderPipeline != null) {
+            orderPipeline.close();
+        }
+    }
+
+    public OrderPipeline.Metrics getOrderPipelineMetrics() {
+        return orderPipeline != null ? orderPipeline.getMetrics() : OrderPipeline.Metrics.DISABLED;
     }
 
     public Page<Order> getAllOrders(Pageable pageable) {
         return orderRepository.findAll(pageable);
     }
 
+    // Danh sách đơn cho admin, đọc từ order_summary
+    public Slice<OrderSummary> getOrderSlice(Pageable pageable) {
+        return orderSummaryRepository.findSliceBy(pageable);
+    }
+
+    // Tổng số đơn chỉ dùng để vẽ số trang nên được phép trễ vài chục giây
+    public long countOrders() {
+        return countCache.get(ORDER_COUNT_KEY, ORDER_COUNT_TTL_MILLIS, orderRepository::count);
+    }
+
+    /**
+     * Lọc đơn cho admin theo trạng thái, phương thức thanh toán, số điện thoại và khoảng ngày đặt, mới nhất trước.
+     * Đọc order_summary theo keyset trên order_id: mỗi trang là một lần quét chỉ mục từ con trỏ, không OFFSET, không COUNT.
+     */
+    public KeysetPage<OrderSummary> getFilteredOrders(OrderCriteriaDTO criteria, int size) {
+        Specification<OrderSummary> combinedSpec = Specification.where(null);
+
+        String status = filterValue(criteria.getStatus());
+        if (status != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.matchStatus(status));
+        }
+        String paymentMethod = filterValue(criteria.getPaymentMethod());
+        if (paymentMethod != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.matchPaymentMethod(paymentMethod));
+        }
+        String phone = filterValue(criteria.getPhone());
+        if (phone != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.matchReceiverPhone(phone));
+        }
+        LocalDate from = parseDate(filterValue(criteria.getFrom()));
+        if (from != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.createdFrom(from.atStartOfDay()));
+        }
+        LocalDate to = parseDate(filterValue(criteria.getTo()));
+        if (to != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.createdBefore(to.plusDays(1).atStartOfDay()));
+        }
+        KeysetCursor cursor = KeysetCursor.decode(filterValue(criteria.getCursor()));
+        if (cursor != null) {
+            combinedSpec = combinedSpec.and(OrderSummarySpecs.orderIdBelow(cursor.getId()));
+        }
+
+        List<OrderSummary> rows = orderSummaryRepository.findBy(combinedSpec, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, OrderSummary_.ORDER_ID))
+                .limit(size + 1)
+                .all());
+        return KeysetPage.of(rows, size, summary -> KeysetCursor.ofId(summary.getOrderId()));
+    }
+
+    // Ô lọc để trống trên form được gửi lên dưới dạng chuỗi rỗng
+    private static String filterValue(Optional<String> value) {
+        return value != null && value.isPresent() && !value.get().isBlank() ? value.get().trim() : null;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     public Optional<Order> getOrderById(long id) {
         return orderRepository.findById(id);
     }
 
     public void deleteOrderById(long id) {
-        Optional<Order> orderOptional = this.getOrderById(id);
-        if (orderOptional.isPresent()) {
-            Order order = orderOptional.get();
-            List<OrderDetail> orderDetails = order.getOrderDetails();
+        transactionTemplate.executeWithoutResult(status -> deleteOrders(List.of(id)));
+        countCache.evict(ORDER_COUNT_KEY);
+    }
+
+    public record PurgeResult(int orders, int orderDetails) {
+    }
 
-            for (OrderDetail orderDetail : orderDetails) {
-                orderDetailRepository.deleteById(orderDetail.getId());
+    /**
+     * Xóa các đơn tạo trước cutoff (ví dụ đơn thử sau kiểm thử tải), mỗi lô PURGE_CHUNK_SIZE đơn cũ nhất
+     * trong một transaction ngắn riêng, đến khi không còn đơn nào trước cutoff. Đơn tạo trước khi có cột
+     * created_at không bị xóa. Cutoff phải cũ hơn app.order-purge.min-age-days ngày, để một ngày gõ nhầm
+     * ở tương lai không xóa sạch đơn đang xử lý.
+     */
+    public PurgeResult purgeOrdersCreatedBefore(LocalDateTime cutoff, String triggeredBy) {
+        LocalDateTime latestCutoff = LocalDate.now().minusDays(orderPurgeMinAgeDays).atStartOfDay();
+        if (cutoff.isAfter(latestCutoff)) {
+            throw new IllegalArgumentException("Chỉ được xóa đơn tạo trước " + latestCutoff.toLocalDate()
+                    + " (cũ hơn " + orderPurgeMinAgeDays + " ngày)");
+        }
+        log.info("Order purge before {} triggered by {}", cutoff, triggeredBy);
+
+        int orders = 0;
+        int orderDetails = 0;
+        while (true) {
+            // Dừng khi không còn đơn nào, không dựa vào số dòng xóa được: lô bị xóa đồng thời vẫn có thể còn đơn sau nó
+            List<Long> orderIds = orderJdbcRepository.findIdsCreatedBefore(cutoff, PURGE_CHUNK_SIZE);
+            if (orderIds.isEmpty()) {
+                break;
             }
+            int[] removed = transactionTemplate.execute(status -> deleteOrders(orderIds));
+            orders += removed[0];
+            orderDetails += removed[1];
         }
-        orderRepository.deleteById(id);
+        countCache.evict(ORDER_COUNT_KEY);
+
+        PurgeResult result = new PurgeResult(orders, orderDetails);
+        log.info("Order purge before {} by {}: removed {} orders and {} order lines",
+                cutoff, triggeredBy, result.orders(), result.orderDetails());
+        return result;
+    }
+
+    // Trả kho cho đơn còn giữ hàng rồi xóa theo tập id, trả về {số đơn, số dòng đơn}; gọi trong transaction
+    private int[] deleteOrders(List<Long> orderIds) {
+        inventoryService.releaseAll(orderIds);
+        return orderJdbcRepository.deleteAll(orderIds);
+    }
+
+    /**
+     * Màn hình cập nhật từng đơn: chỉ chấp nhận bước có trong OrderStatusTransitions, ghi bằng UPDATE ... AND status = from
+     * như thao tác hàng loạt. Hủy đơn thì trả hàng theo trạng thái cũ: đơn VNPay còn giữ hàng thì trả phần giữ,
+     * đơn đã chốt (COD, đã thanh toán) thì trả theo dòng đơn và trừ lại số đã bán; đơn "Thiếu hàng" chưa trừ kho.
+     */
+    public void updateOrderStatus(long orderId, String to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy đơn " + orderId));
+            String from = order.getStatus();
+            if (from != null && from.equals(to)) {
+                return;
+            }
+            if (!OrderStatusTransitions.isAllowedSingle(from, to)) {
+                throw new IllegalArgumentException("Không thể chuyển đơn từ \"" + from + "\" sang \"" + to + "\"");
+            }
+            if (orderRepository.transitionStatus(List.of(orderId), from, to) == 0) {
+                throw new IllegalArgumentException("Đơn " + orderId + " vừa được chuyển trạng thái, vui lòng tải lại");
+            }
+            orderSummaryRepository.transitionStatus(List.of(orderId), from, to);
+            if (OrderStatusTransitions.CANCELLED.equals(to)) {
+                if ("Chờ thanh toán".equals(from)) {
+                    inventoryService.releaseAll(List.of(orderId));
+                } else if ("Chờ xử lý".equals(from) || "Đã thanh toán".equals(from)) {
+                    inventoryService.restock(order.getOrderDetails());
+                    productService.revertSales(order.getOrderDetails());
+                }
+            }
+        });
     }
 
-    public void updateOrderStatus(Order order) {
-        Optional<Order> orderOptional = this.getOrderById(order.getId());
-        if (orderOptional.isPresent()) {
-            Order currentOrder = orderOptional.get();
-            currentOrder.setStatus(order.getStatus());
-            orderRepository.save(order);
+    /**
+     * Chuyển trạng thái hàng loạt bằng một câu UPDATE ... WHERE id IN (...) AND status = from, nên đơn đã được
+     * chuyển sang trạng thái khác trong lúc đó không bị ghi đè. Trả về số đơn thực sự được chuyển.
+     */
+    public int transitionOrderStatus(Collection<Long> ids, String from, String to) {
+        if (!OrderStatusTransitions.isAllowed(from, to)) {
+            throw new IllegalArgumentException("Không thể chuyển đơn từ \"" + from + "\" sang \"" + to + "\"");
+        }
+        List<Long> orderIds = ids == null ? List.of() : ids.stream().distinct().toList();
+        if (orderIds.isEmpty()) {
+            return 0;
         }
+        if (orderIds.size() > MAX_BULK_TRANSITION) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BULK_TRANSITION + " đơn mỗi lần chuyển trạng thái");
+        }
+        return transactionTemplate.execute(status -> {
+            int updated = orderRepository.transitionStatus(orderIds, from, to);
+            orderSummaryRepository.transitionStatus(orderIds, from, to);
+            return updated;
+        });
     }
 
-    public List<Order> getOrdersByUser(User user) {
-        return orderRepository.findOrderByUser(user);
+    /**
+     * Lịch sử đơn của một người dùng, mới nhất trước, đọc một trang order_summary theo chỉ mục (user_id, order_id),
+     * không JOIN tới dòng đơn hay sản phẩm.
+     */
+    public Slice<OrderSummary> getOrderHistory(long userId, Pageable pageable) {
+        return orderSummaryRepository.findByUserIdOrderByOrderIdDesc(userId, pageable);
+    }
+
+    // Chi tiết một đơn trong lịch sử; rỗng nếu đơn không thuộc người dùng này
+    public Optional<Order> getOrderWithDetails(long orderId, long userId) {
+        return orderRepository.findWithDetailsByIdAndUserId(orderId, userId);
+    }
+
+    /**
+     * Dựng order_summary cho các đơn có trước bảng tóm tắt, mỗi lô BACKFILL_CHUNK_SIZE đơn một transaction.
+     * Đơn mới luôn ghi dòng tóm tắt trong cùng transaction (và bị xóa cùng nhau), nên khi hai bảng đã cùng
+     * số dòng thì không còn gì để dựng: lần khởi động sau chỉ tốn hai câu COUNT thay vì quét anti-join.
+     * Tắt hẳn bằng app.order-summary.backfill=false khi đã chạy xong trên môi trường thật.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOrderSummaries() {
+        if (!orderSummaryBackfill || orderRepository.count() == orderSummaryRepository.count()) {
+            return;
+        }
+        int inserted;
+        do {
+            inserted = transactionTemplate.execute(status -> orderSummaryJdbcRepository.backfill(BACKFILL_CHUNK_SIZE));
+        } while (inserted == BACKFILL_CHUNK_SIZE);
     }
 
     /**
@@ -81,44 +363,9 @@ public class OrderService {
             String receiverName,
             String receiverAddress,
             String receiverPhone) {
-        
-        Order order = null;
-        // Get cart by user
-        Cart cart = cartRepository.findByUser(user);
-        if (cart != null) {
-            List<CartDetail> cartDetails = cart.getCartDetails();
-
-            if (cartDetails != null && !cartDetails.isEmpty()) {
-                // create order
-                order = new Order();
-                order.setUser(user);
-                order.setReceiverName(receiverName);
-                order.setReceiverAddress(receiverAddress);
-                order.setReceiverPhone(receiverPhone);
-                order.setStatus("Chờ thanh toán");
-                order.setPaymentMethod("VNPAY");
-
-                double sum = 0;
-                for (CartDetail cartDetail : cartDetails) {
-                    sum += cartDetail.getPrice() * cartDetail.getQuantity();
-                }
-
-                order.setTotalPrice(sum);
-                orderRepository.save(order);
-
-                for (CartDetail cartDetail : cartDetails) {
-                    OrderDetail orderDetail = new OrderDetail();
-                    orderDetail.setOrder(order);
-                    orderDetail.setProduct(cartDetail.getProduct());
-                    orderDetail.setPrice(cartDetail.getPrice());
-                    orderDetail.setQuantity(cartDetail.getQuantity());
-
-                    orderDetailRepository.save(orderDetail);
-                }
-            }
-        }
-        
-        return order;
+        // Giỏ hàng giữ nguyên đến khi VNPay báo thanh toán thành công (clearCartAfterOrder)
+        return createOrderFromCart(user, receiverName, receiverAddress, receiverPhone,
+                "Chờ thanh toán", "VNPAY", false);
     }
     
     /**
@@ -127,30 +374,12 @@ public class OrderService {
      * @param session Session hiện tại
      */
     public void clearCartAfterOrder(User user, HttpSession session) {
-        // Get cart by user
-        Cart cart = cartRepository.findByUser(user);
-        if (cart != null) {
-            List<CartDetail> cartDetails = cart.getCartDetails();
-
-            if (cartDetails != null) {
-                // Delete cart details and cart after placing order
-                for (CartDetail cartDetail : cartDetails) {
-                    cartDetailRepository.deleteById(cartDetail.getId());
-                }
-
-                if (user.getCart() != null && user.getCart().getId() > 0) {
-                    user.setCart(null);
-                    userRepository.save(user);
-                }
-
-                // Tải lại Cart để đảm bảo trạng thái persistent
-                Cart managedCart = cartRepository.findById(cart.getId())
-                        .orElseThrow(() -> new RuntimeException("Cart not found"));
-                cartRepository.delete(managedCart);
-
-                // clear cart from session
-                session.setAttribute("sum", 0);
-            }
+        // Giỏ hàng session (nếu bật) phải được ghi xuống DB trước khi xóa giỏ
+        cartWriteBehind.flush(user.getId());
+        Long cartId = cartRepository.findIdByUserId(user.getId());
+        if (cartId != null) {
+            transactionTemplate.executeWithoutResult(status -> deleteCart(cartId));
+            clearSessionCart(user, session);
         }
     }
 
@@ -160,59 +389,243 @@ public class OrderService {
             String receiverName,
             String receiverAddress,
             String receiverPhone) {
+        // Đơn COD được chốt ngay khi đặt: ghi nhận bán và xóa giỏ cùng transaction với đơn
+        Order order = createOrderFromCart(user, receiverName, receiverAddress, receiverPhone,
+                "Chờ xử lý", "COD", true);
+        if (order != null) {
+            clearSessionCart(user, session);
+        }
+    }
 
-        // Get cart by user
-        Cart cart = cartRepository.findByUser(user);
-        if (cart != null) {
-            List<CartDetail> cartDetails = cart.getCartDetails();
-
-            if (cartDetails != null) {
-                // create order
-                Order order = new Order();
-                order.setUser(user);
-                order.setReceiverName(receiverName);
-                order.setReceiverAddress(receiverAddress);
-                order.setReceiverPhone(receiverPhone);
-                order.setStatus("Chờ xử lý");
-                order.setPaymentMethod("COD");
-
-                double sum = 0;
-                for (CartDetail cartDetail : cartDetails) {
-                    sum += cartDetail.getPrice() * cartDetail.getQuantity();
-                }
-
-                order.setTotalPrice(sum);
-                orderRepository.save(order);
+    // Đường đặt hàng chung của COD và VNPay; trả về null nếu giỏ trống
+    private Order createOrderFromCart(
+            User user,
+            String receiverName,
+            String receiverAddress,
+            String receiverPhone,
+            String status,
+            String paymentMethod,
+            boolean confirmNow) {
+        // Giỏ hàng session (nếu bật) phải được ghi xuống DB trước khi đọc giỏ để tạo đơn
+        cartWriteBehind.flush(user.getId());
+
+        // Flash sale: hết vé thì từ chối ngay, còn vé thì chờ tới lượt trước khi mở transaction
+        try (CheckoutAdmission.Ticket ticket = checkoutAdmission.admit(() -> findCartQuantities(user.getId()))) {
+            OrderCommand command = OrderCommand.of(user, receiverName, receiverAddress, receiverPhone,
+                    status, paymentMethod, confirmNow);
+            Order order;
+            try {
+                order = orderPipeline != null ? orderPipeline.submit(command) : createOrderInTransaction(command);
+            } catch (DuplicateOrderException e) {
+                // Đơn đã được lệnh đầu tạo (và giữ vé); vé của lệnh này được trả lại khi đóng
+                return e.getOrder();
+            }
+            if (order != null) {
+                ticket.confirm();
+            }
+            return order;
+        }
+    }
 
-                for (CartDetail cartDetail : cartDetails) {
-                    OrderDetail orderDetail = new OrderDetail();
-                    orderDetail.setOrder(order);
-                    orderDetail.setProduct(cartDetail.getProduct());
-                    orderDetail.setPrice(cartDetail.getPrice());
-                    orderDetail.setQuantity(cartDetail.getQuantity());
+    /**
+     * Tạo đơn từ giỏ hàng trong một transaction: đọc giỏ kèm dòng, chèn đơn, chèn lô dòng đơn,
+     * và nếu confirmNow thì ghi nhận bán rồi xóa giỏ bằng hai câu DELETE. Lỗi giữa chừng rollback toàn bộ,
+     * không còn đơn thiếu dòng hay giỏ đã xóa một nửa. Kho được trừ trong cùng transaction; đơn chưa chốt
+     * (VNPay) còn giữ dòng inventory_reservations.
+     */
+    private Order createOrderInTransaction(OrderCommand command) {
+        PreparedOrder prepared = transactionTemplate.execute(tx -> {
+            PreparedOrder order = prepareOrder(command);
+            if (order == null) {
+                return null;
+            }
+            orderRepository.save(order.order());
+            orderDetailJdbcRepository.insertAll(order.orderDetails());
+            orderSummaryJdbcRepository.insertAll(List.of(OrderSummary.of(order.order(), order.orderDetails())));
+            settle(order);
+            return order;
+        });
+
+        if (prepared == null) {
+            return null;
+        }
+        recommendationService.recordOrder(prepared.orderDetails());
+        return prepared.order();
+    }
 
+    /**
+     * Committer của OrderPipeline: cả lô chung một transaction. Mỗi đơn được chuẩn bị (đọc giỏ, trừ kho) sau một
+     * savepoint, đơn lỗi ở bước này (thiếu hàng, dòng giỏ hỏng...) chỉ rollback về savepoint của nó; các đơn còn lại
+     * được chèn bằng một lô orders, một lô order_detail và một lô order_summary. Lỗi ở các bước ghi chung đó làm
+     * rollback cả lô, nên khi đó từng lệnh được làm lại trong transaction riêng để một đơn hỏng không kéo theo
+     * cả hàng đợi. Kết quả của từng lệnh chỉ được trả sau khi đơn của nó đã commit.
+     */
+    private void commitBatch(List<OrderCommand> commands) {
+        Map<OrderCommand, RuntimeException> rejected = new HashMap<>();
+        // Lệnh trùng người dùng → lệnh đầu tiên của người đó trong lô.
+        // Hai lệnh của cùng người dùng trong một lô đọc cùng một giỏ: chỉ lệnh đầu tạo đơn
+        Map<OrderCommand, OrderCommand> duplicates = new HashMap<>();
+        Map<Long, OrderCommand> firstByUser = new HashMap<>();
+        for (OrderCommand command : commands) {
+            OrderCommand first = firstByUser.putIfAbsent(command.user().getId(), command);
+            if (first != null) {
+                duplicates.put(command, first);
+            }
+        }
 
-                    orderDetailRepository.save(orderDetail);
+        List<PreparedOrder> accepted;
+        try {
+            accepted = transactionTemplate.execute(tx -> {
+                List<PreparedOrder> orders = new ArrayList<>(commands.size());
+                for (OrderCommand command : commands) {
+                    if (duplicates.containsKey(command)) {
+                        continue;
+                    }
+                    Object savepoint = tx.createSavepoint();
+                    try {
+                        PreparedOrder order = prepareOrder(command);
+                        if (order != null) {
+                            orders.add(order);
+                        }
+                        tx.releaseSavepoint(savepoint);
+                    } catch (RuntimeException e) {
+                        tx.rollbackToSavepoint(savepoint);
+                        rejected.put(command, e);
+                    }
+                }
+                if (orders.isEmpty()) {
+                    return orders;
                 }
 
-                // Delete cart details and cart after placing order
-                for (CartDetail cartDetail : cartDetails) {
-                    cartDetailRepository.deleteById(cartDetail.getId());
+                orderJdbcRepository.insertAll(orders.stream().map(PreparedOrder::order).toList());
+                List<OrderDetail> orderDetails = new ArrayList<>();
+                List<OrderSummary> summaries = new ArrayList<>(orders.size());
+                for (PreparedOrder order : orders) {
+                    orderDetails.addAll(order.orderDetails());
+                    summaries.add(OrderSummary.of(order.order(), order.orderDetails()));
+                }
+                orderDetailJdbcRepository.insertAll(orderDetails);
+                orderSummaryJdbcRepository.insertAll(summaries);
+                for (PreparedOrder order : orders) {
+                    settle(order);
                 }
+                return orders;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Order batch of {} commands failed, retrying them one by one", commands.size(), e);
+            accepted = null;
+        }
 
-                if (user.getCart() != null && user.getCart().getId() > 0) {
-                    user.setCart(null);
-                    userRepository.save(user);
+        Map<OrderCommand, Order> placed = new HashMap<>();
+        if (accepted != null) {
+            for (PreparedOrder order : accepted) {
+                recommendationService.recordOrder(order.orderDetails());
+                placed.put(order.command(), order.order());
+            }
+        } else {
+            // Cả lô đã rollback (kể cả phần trừ kho): mỗi lệnh tự chuẩn bị và commit lại, lỗi chỉ về lệnh gây ra nó
+            rejected.clear();
+            for (OrderCommand command : commands) {
+                if (duplicates.containsKey(command)) {
+                    continue;
                 }
+                try {
+                    placed.put(command, createOrderInTransaction(command));
+                } catch (RuntimeException e) {
+                    rejected.put(command, e);
+                }
+            }
+        }
+        for (OrderCommand command : commands) {
+            OrderCommand first = duplicates.get(command);
+            if (first != null) {
+                RuntimeException error = rejected.get(first);
+                command.result().completeExceptionally(
+                        error != null ? error : new DuplicateOrderException(placed.get(first)));
+                continue;
+            }
+            RuntimeException error = rejected.get(command);
+            if (error != null) {
+                command.result().completeExceptionally(error);
+            } else {
+                // null nếu giỏ trống
+                command.result().complete(placed.get(command));
+            }
+        }
+    }
 
-                // Tải lại Cart để đảm bảo trạng thái persistent
-                Cart managedCart = cartRepository.findById(cart.getId())
-                        .orElseThrow(() -> new RuntimeException("Cart not found"));
-                cartRepository.delete(managedCart);
+    private record PreparedOrder(OrderCommand command, Order order, List<OrderDetail> orderDetails, long cartId) {
+    }
 
-                // clear cart from session
-                session.setAttribute("sum", 0);
+    // Đọc giỏ, dựng đơn và dòng đơn (chưa chèn), trừ kho; null nếu giỏ trống
+    private PreparedOrder prepareOrder(OrderCommand command) {
+        // Get cart by user, cùng các dòng và sản phẩm trong một truy vấn
+        Cart cart = cartRepository.findWithDetailsByUserId(command.user().getId());
+        if (cart == null || cart.getCartDetails() == null || cart.getCartDetails().isEmpty()) {
+            return null;
+        }
+        List<CartDetail> cartDetails = cart.getCartDetails();
+
+        Order order = new Order();
+        order.setUser(command.user());
+        order.setReceiverName(command.receiverName());
+        order.setReceiverAddress(command.receiverAddress());
+        order.setReceiverPhone(command.receiverPhone());
+        order.setStatus(command.status());
+        order.setPaymentMethod(command.paymentMethod());
+        order.setCreatedAt(LocalDateTime.now());
+
+        double sum = 0;
+        List<OrderDetail> orderDetails = new ArrayList<>(cartDetails.size());
+        for (CartDetail cartDetail : cartDetails) {
+            // Dòng hỏng (số lượng dưới 1) không bao giờ thành dòng đơn: trừ kho số âm sẽ cộng thêm hàng
+            if (cartDetail.getQuantity() < 1) {
+                continue;
             }
+            sum += cartDetail.getPrice() * cartDetail.getQuantity();
+
+            OrderDetail orderDetail = new OrderDetail();
+            orderDetail.setOrder(order);
+            orderDetail.setProduct(cartDetail.getProduct());
+            orderDetail.setPrice(cartDetail.getPrice());
+            orderDetail.setQuantity(cartDetail.getQuantity());
+            orderDetails.add(orderDetail);
+        }
+        if (orderDetails.isEmpty()) {
+            return null;
+        }
+        order.setTotalPrice(sum);
+        // Thiếu hàng thì OutOfStockException làm rollback cả đơn
+        inventoryService.reserve(orderDetails);
+        return new PreparedOrder(command, order, orderDetails, cart.getId());
+    }
+
+    // Sau khi đơn đã chèn: đơn chốt ngay thì ghi nhận bán và xóa giỏ, đơn VNPay thì ghi giữ hàng
+    private void settle(PreparedOrder order) {
+        if (order.command().confirmNow()) {
+            productService.recordSales(order.orderDetails());
+            deleteCart(order.cartId());
+        } else {
+            inventoryService.hold(order.order().getId(), order.orderDetails());
         }
     }
+
+    private Map<Long, Long> findCartQuantities(long userId) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (Object[] row : cartDetailRepository.findQuantitiesByUserId(userId)) {
+            quantities.put((Long) row[0], (Long) row[1]);
+        }
+        return quantities;
+    }
+
+    private void deleteCart(long cartId) {
+        cartDetailRepository.deleteAllByCartId(cartId);
+        cartRepository.deleteCartById(cartId);
+    }
+
+    private void clearSessionCart(User user, HttpSession session) {
+        session.setAttribute("sum", 0);
+        session.removeAttribute(SessionCart.SESSION_ATTRIBUTE);
+        cartWriteBehind.discard(user.getId());
+    }
 }
@@ -2,51 +2,184 @@ package com.phnm.laptopshop.service;
 
 import com.phnm.laptopshop.domain.Cart;
 import com.phnm.laptopshop.domain.CartDetail;
+import com.phnm.laptopshop.domain.OrderDetail;
 import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.Product_;
 import com.phnm.laptopshop.domain.User;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
 import com.phnm.laptopshop.domain.dto.ProductCriteriaDTO;
+import com.phnm.laptopshop.repository.CartDetailJdbcRepository;
 import com.phnm.laptopshop.repository.CartDetailRepository;
 import com.phnm.laptopshop.repository.CartRepository;
 import com.phnm.laptopshop.repository.ProductRepository;
 import com.phnm.laptopshop.repository.UserRepository;
+import com.phnm.laptopshop.service.cart.CartWriteBehind;
+import com.phnm.laptopshop.service.cart.GuestCartCookie;
+import com.phnm.laptopshop.service.cart.SessionCart;
+import com.phnm.laptopshop.service.catalog.CatalogIndex;
+import com.phnm.laptopshop.service.catalog.CatalogVersion;
+import com.phnm.laptopshop.service.catalog.HomePageCache;
+import com.phnm.laptopshop.service.catalog.PriceRange;
+import com.phnm.laptopshop.service.catalog.QueryResultCache;
+import com.phnm.laptopshop.service.catalog.SearchIndex;
+import com.phnm.laptopshop.service.catalog.SuggestionIndex;
+import com.phnm.laptopshop.service.inventory.HotStock;
+import com.phnm.laptopshop.service.pagination.CountCache;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
 import com.phnm.laptopshop.service.specification.ProductSpecs;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductService {
+    private static final long PRODUCT_COUNT_TTL_MILLIS = 5 * 60 * 1000;
+
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final CartDetailRepository cartDetailRepository;
     private final UserService userService;
+    private final CatalogIndex catalogIndex;
+    private final SearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final CatalogVersion catalogVersion;
+    private final HomePageCache homePageCache;
+    private final QueryResultCache queryResultCache;
+    private final CountCache countCache;
+    private final CartWriteBehind cartWriteBehind;
+    private final GuestCartCookie guestCartCookie;
+    private final CartDetailJdbcRepository cartDetailJdbcRepository;
+    private final HotStock hotStock;
+    private final boolean sessionCartMode;
 
     public ProductService(
             ProductRepository productRepository,
             UserRepository userRepository,
             CartRepository cartRepository,
             CartDetailRepository cartDetailRepository,
-            UserService userService) {
+            UserService userService,
+            CatalogIndex catalogIndex,
+            SearchIndex searchIndex,
+            SuggestionIndex suggestionIndex,
+            CatalogVersion catalogVersion,
+            HomePageCache homePageCache,
+            QueryResultCache queryResultCache,
+            CountCache countCache,
+            CartWriteBehind cartWriteBehind,
+            GuestCartCookie guestCartCookie,
+            CartDetailJdbcRepository cartDetailJdbcRepository,
+            HotStock hotStock,
+            @Value("${app.cart.session-mode:false}") boolean sessionCartMode) {
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.cartDetailRepository = cartDetailRepository;
         this.userService = userService;
+        this.catalogIndex = catalogIndex;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.catalogVersion = catalogVersion;
+        this.homePageCache = homePageCache;
+        this.queryResultCache = queryResultCache;
+        this.countCache = countCache;
+        this.cartWriteBehind = cartWriteBehind;
+        this.guestCartCookie = guestCartCookie;
+        this.cartDetailJdbcRepository = cartDetailJdbcRepository;
+        this.hotStock = hotStock;
+        this.sessionCartMode = sessionCartMode;
+    }
+
+    /**
+     * Nạp các chỉ mục sản phẩm trong bộ nhớ khi ứng dụng khởi động xong.
+     * Trước khi nạp xong, lọc và tìm kiếm vẫn đi qua Specification như cũ.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildCatalogIndex() {
+        List<Product> products = productRepository.findAll();
+        catalogIndex.rebuild(products);
+        searchIndex.rebuild(products);
+        suggestionIndex.rebuild(products);
+    }
+
+    public Page<ProductCardDTO> getAllProductsWithSpec(Pageable pageable, ProductCriteriaDTO productCriteriaDTO) {
+        CatalogIndex.SortOrder sortOrder = toSortOrder(pageable.getSort());
+        if (sortOrder == CatalogIndex.SortOrder.SOLD_DESC && catalogIndex.isReady()) {
+            // Thứ hạng bán chạy đổi theo từng đơn hàng, không cache theo CatalogVersion được
+            return getAllProductsFromIndex(pageable, productCriteriaDTO);
+        }
+
+        String cacheKey = QueryResultCache.keyOf(productCriteriaDTO, sortOrder,
+                pageable.getOffset(), pageable.getPageSize());
+        QueryResultCache.CardPage cached = queryResultCache.get(cacheKey);
+        if (cached != null) {
+            return new PageImpl<>(cached.cards(), pageable, cached.total());
+        }
+
+        long version = catalogVersion.current();
+        Page<ProductCardDTO> productsPage = catalogIndex.isReady()
+                ? getAllProductsFromIndex(pageable, productCriteriaDTO)
+                : getAllProductsFromDatabase(pageable, productCriteriaDTO);
+        queryResultCache.put(cacheKey, version,
+                new QueryResultCache.CardPage(productsPage.getContent(), productsPage.getTotalElements()));
+        return productsPage;
     }
 
-    public Page<Product> getAllProductsWithSpec(Pageable pageable, ProductCriteriaDTO productCriteriaDTO) {
+    private Page<ProductCardDTO> getAllProductsFromDatabase(Pageable pageable, ProductCriteriaDTO productCriteriaDTO) {
         if (productCriteriaDTO.getTarget() == null
                 && productCriteriaDTO.getFactory() == null
                 && productCriteriaDTO.getPrice() == null) {
-            return productRepository.findAll(pageable);
+            return productRepository.findAllCards(pageable);
         }
+        return productRepository.findCards(buildSpecification(productCriteriaDTO), pageable);
+    }
+
+    /**
+     * Trang /product dạng Slice: chỉ biết còn trang sau hay không, không chạy câu COUNT.
+     * Khi chỉ mục đã sẵn sàng thì tổng số có sẵn từ bitmap nên dùng luôn getAllProductsWithSpec.
+     */
+    public Slice<ProductCardDTO> getProductSliceWithSpec(Pageable pageable, ProductCriteriaDTO productCriteriaDTO) {
+        if (catalogIndex.isReady()) {
+            return getAllProductsWithSpec(pageable, productCriteriaDTO);
+        }
+        return productRepository.findCardSlice(buildSpecification(productCriteriaDTO), pageable);
+    }
 
+    /**
+     * Tổng số sản phẩm khớp bộ lọc, tách khỏi truy vấn lấy trang và được cache theo phiên bản danh mục.
+     */
+    public long countProductsWithSpec(ProductCriteriaDTO productCriteriaDTO) {
+        if (catalogIndex.isReady()) {
+            return catalogIndex.count(productCriteriaDTO);
+        }
+        String key = "product|v=" + catalogVersion.current() + "|"
+                + QueryResultCache.keyOf(productCriteriaDTO, CatalogIndex.SortOrder.ID_ASC, 0, 0);
+        return countCache.get(key, PRODUCT_COUNT_TTL_MILLIS,
+                () -> productRepository.count(buildSpecification(productCriteriaDTO)));
+    }
+
+    private Specification<Product> buildSpecification(ProductCriteriaDTO productCriteriaDTO) {
         Specification<Product> combinedSpec = Specification.where(null);
 
         if (productCriteriaDTO.getTarget() != null && productCriteriaDTO.getTarget().isPresent()) {
@@ -61,7 +194,97 @@ public class ProductService {
             Specification<Product> currentSpecs = buildPriceSpecification(productCriteriaDTO.getPrice().get());
             combinedSpec = combinedSpec.and(currentSpecs);
         }
-        return productRepository.findAll(combinedSpec, pageable);
+        return combinedSpec;
+    }
+
+    private Page<ProductCardDTO> getAllProductsFromIndex(Pageable pageable, ProductCriteriaDTO productCriteriaDTO) {
+        CatalogIndex.IdPage idPage = catalogIndex.query(
+                productCriteriaDTO, toSortOrder(pageable.getSort()), (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findAllInOrder(idPage.ids()), pageable, idPage.total());
+    }
+
+    /**
+     * Phân trang keyset cho trang /product. Có chỉ mục thì lọc trên chỉ mục; chưa có chỉ mục thì chỉ
+     * hỗ trợ khi không lọc (dùng truy vấn keyset của ProductRepository), còn lại trả về null để
+     * controller quay về phân trang đánh số.
+     */
+    public KeysetPage<ProductCardDTO> getProductsWithSpecAfter(
+            ProductCriteriaDTO productCriteriaDTO, Sort sort, KeysetCursor cursor, int size) {
+        CatalogIndex.SortOrder sortOrder = toSortOrder(sort);
+        List<ProductCardDTO> rows;
+        if (catalogIndex.isReady()) {
+            rows = findAllInOrder(catalogIndex.queryAfter(productCriteriaDTO, sortOrder, cursor, size + 1));
+        } else if (productCriteriaDTO.getTarget() == null
+                && productCriteriaDTO.getFactory() == null
+                && productCriteriaDTO.getPrice() == null) {
+            rows = findProductsAfter(sortOrder, cursor, size + 1);
+        } else {
+            return null;
+        }
+        return KeysetPage.of(rows, size, product -> new KeysetCursor(
+                sortOrder == CatalogIndex.SortOrder.SOLD_DESC ? product.getSold() : product.getPrice(),
+                product.getId()));
+    }
+
+    public KeysetPage<ProductCardDTO> getAllProductsAfter(KeysetCursor cursor, int size) {
+        List<ProductCardDTO> rows = findProductsAfter(CatalogIndex.SortOrder.ID_ASC, cursor, size + 1);
+        return KeysetPage.of(rows, size, product -> KeysetCursor.ofId(product.getId()));
+    }
+
+    private List<ProductCardDTO> findProductsAfter(CatalogIndex.SortOrder sortOrder, KeysetCursor cursor, int limit) {
+        Pageable firstRows = PageRequest.ofSize(limit);
+        switch (sortOrder) {
+            case PRICE_ASC:
+                return cursor == null
+                        ? productRepository.findNextByPriceAsc(-1, 0, firstRows)
+                        : productRepository.findNextByPriceAsc(cursor.getSortValue(), cursor.getId(), firstRows);
+            case PRICE_DESC:
+                return cursor == null
+                        ? productRepository.findNextByPriceDesc(Double.MAX_VALUE, Long.MAX_VALUE, firstRows)
+                        : productRepository.findNextByPriceDesc(cursor.getSortValue(), cursor.getId(), firstRows);
+            case SOLD_DESC:
+                return cursor == null
+                        ? productRepository.findNextBySoldDesc(Long.MAX_VALUE, Long.MAX_VALUE, firstRows)
+                        : productRepository.findNextBySoldDesc((long) cursor.getSortValue(), cursor.getId(), firstRows);
+            case NEWEST:
+                return productRepository.findCardsBeforeId(cursor == null ? Long.MAX_VALUE : cursor.getId(), firstRows);
+            default:
+                return productRepository.findCardsAfterId(cursor == null ? 0 : cursor.getId(), firstRows);
+        }
+    }
+
+    private CatalogIndex.SortOrder toSortOrder(Sort sort) {
+        if (sort.getOrderFor(Product_.SOLD) != null) {
+            return CatalogIndex.SortOrder.SOLD_DESC;
+        }
+        Sort.Order idOrder = sort.getOrderFor(Product_.ID);
+        if (idOrder != null && idOrder.isDescending()) {
+            return CatalogIndex.SortOrder.NEWEST;
+        }
+        Sort.Order priceOrder = sort.getOrderFor(Product_.PRICE);
+        if (priceOrder == null) {
+            return CatalogIndex.SortOrder.ID_ASC;
+        }
+        return priceOrder.isAscending() ? CatalogIndex.SortOrder.PRICE_ASC : CatalogIndex.SortOrder.PRICE_DESC;
+    }
+
+    // Lấy thẻ sản phẩm theo khóa chính rồi sắp lại đúng thứ tự của chỉ mục
+    private List<ProductCardDTO> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductCardDTO> productsById = new HashMap<>();
+        for (ProductCardDTO product : productRepository.findCardsByIdIn(ids)) {
+            productsById.put(product.getId(), product);
+        }
+        List<ProductCardDTO> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductCardDTO product = productsById.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
     }
 
 //    public Page<Product> getAllProductsWithSpec(Pageable pageable, double min) {
@@ -103,30 +326,9 @@ public class ProductService {
     public Specification<Product> buildPriceSpecification(List<String> price) {
         Specification<Product> combinedSpec = Specification.where(null);
         for (String p : price) {
-            double min = 0;
-            double max = 0;
-
-            switch (p) {
-                case "duoi-10-trieu":
-                    min = 0;
-                    max = 10000000;
-                    break;
-                case "10-15-trieu":
-                    min = 10000000;
-                    max = 15000000;
-                    break;
-                case "15-20-trieu":
-                    min = 15000000;
-                    max = 20000000;
-                    break;
-                case "tren-20-trieu":
-                    min = 20000000;
-                    max = 200000000;
-                    break;
-            }
-
-            if (min != 0 && max != 0) {
-                Specification<Product> spec = ProductSpecs.matchMultiplePrice(min, max);
+            PriceRange range = PriceRange.fromSlug(p);
+            if (range != null) {
+                Specification<Product> spec = ProductSpecs.matchMultiplePrice(range.getMin(), range.getMax());
                 combinedSpec = combinedSpec.or(spec);
             }
         }
@@ -134,12 +336,76 @@ public class ProductService {
         return combinedSpec;
     }
 
-    public Page<Product> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable);
+    public Page<ProductCardDTO> getAllProducts(Pageable pageable) {
+        return productRepository.findAllCards(pageable);
+    }
+
+    /**
+     * Sản phẩm hiển thị ở trang chủ, lấy từ cache; chỉ truy vấn DB sau khi danh mục thay đổi.
+     */
+    public List<ProductCardDTO> getHomePageProducts() {
+        return homePageCache.getProducts(() -> productRepository.findAllCards(PageRequest.of(0, 8)).getContent());
     }
 
     public void saveProduct(Product newProduct) {
-        productRepository.save(newProduct);
+        saveProductIndexes(productRepository.save(newProduct));
+    }
+
+    private void saveProductIndexes(Product savedProduct) {
+        catalogIndex.put(savedProduct);
+        searchIndex.put(savedProduct);
+        suggestionIndex.put(savedProduct);
+        hotStock.reset(savedProduct.getId(), savedProduct.getQuantity());
+        catalogVersion.bump();
+    }
+
+    /**
+     * Lưu form sửa sản phẩm bằng một câu UPDATE chỉ gồm các cột sửa được, rồi đọc lại dòng vừa ghi để cập nhật chỉ mục,
+     * nên số đã bán do đơn hàng commit trong lúc admin mở form không bị ghi đè bằng giá trị cũ.
+     */
+    @Transactional
+    public void updateProduct(Product editedProduct, String image) {
+        if (productRepository.updateDetails(editedProduct, image) == 0) {
+            return;
+        }
+        saveProductIndexes(productRepository.findProductById(editedProduct.getId()));
+    }
+
+    /**
+     * Ghi nhận số lượng đã bán của một đơn hàng đã chốt (đặt COD hoặc VNPay thanh toán thành công):
+     * cộng sold trên DB trong transaction của người gọi, còn thứ hạng "bán chạy" trong CatalogIndex chỉ được cộng
+     * khi transaction đó commit, nên đơn bị rollback không làm lệch thứ hạng (và con trỏ keyset theo sold) so với DB.
+     */
+    public void recordSales(List<OrderDetail> orderDetails) {
+        addSales(orderDetails, 1);
+    }
+
+    // Trừ lại số đã bán khi hủy một đơn đã chốt, cùng cách cập nhật DB và chỉ mục như recordSales
+    public void revertSales(List<OrderDetail> orderDetails) {
+        addSales(orderDetails, -1);
+    }
+
+    private void addSales(List<OrderDetail> orderDetails, int sign) {
+        for (OrderDetail orderDetail : orderDetails) {
+            productRepository.incrementSold(orderDetail.getProduct().getId(), sign * orderDetail.getQuantity());
+        }
+        Runnable updateIndexes = () -> {
+            for (OrderDetail orderDetail : orderDetails) {
+                long productId = orderDetail.getProduct().getId();
+                catalogIndex.addSold(productId, sign * orderDetail.getQuantity());
+                suggestionIndex.addSold(productId, sign * orderDetail.getQuantity());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateIndexes.run();
+                }
+            });
+        } else {
+            updateIndexes.run();
+        }
     }
 
     public Product getProductById(long id) {
@@ -148,56 +414,256 @@ public class ProductService {
 
     public void deleteProductById(long id) {
         productRepository.deleteById(id);
+        catalogIndex.remove(id);
+        searchIndex.remove(id);
+        suggestionIndex.remove(id);
+        catalogVersion.bump();
     }
 
+    /**
+     * Thêm sản phẩm vào giỏ DB trong một transaction: lấy (hoặc tạo) giỏ, upsert dòng, cộng sum.
+     */
+    @Transactional
     public void addProductToCart(
             String email,
             long productId,
             HttpSession session,
             long quantity) {
-        User user = userService.getUserByEmail(email);
-        if (user != null) {
-            Cart cart = cartRepository.findByUser(user);
-
-            if (cart == null) {
-                Cart newCart = new Cart();
-                newCart.setUser(user);
-                newCart.setSum(0);
-                cart = cartRepository.save(newCart);
-                user.setCart(cart); // Đồng bộ quan hệ ngược
-                userRepository.save(user); // Lưu User để cập nhật
+        if (quantity < 1) {
+            return;
+        }
+        if (sessionCartMode) {
+            addProductToSessionCart(productId, session, quantity);
+            return;
+        }
+
+        Long cartId = findCartId(email, session);
+        if (cartId == null) {
+            return;
+        }
+
+        // 1 = dòng mới trong giỏ, 2 = chỉ cộng thêm số lượng; không cần đọc lại giỏ hàng
+        int affectedRows = cartDetailRepository.upsertQuantity(cartId, productId, quantity);
+        if (affectedRows == 1) {
+            cartRepository.addToSum(cartId, 1);
+            Object currentSum = session.getAttribute("sum");
+            int sum = (currentSum instanceof Integer ? (Integer) currentSum : 0) + 1;
+            session.setAttribute("sum", sum);
+        }
+    }
+
+    /**
+     * Id giỏ hàng của người dùng hiện tại, tạo giỏ mới nếu chưa có; gọi trong transaction.
+     * Giỏ được tạo bằng upsert trên khóa duy nhất carts.user_id, nên hai lần thêm đầu tiên chạy đồng thời
+     * vẫn chỉ tạo một giỏ; câu đọc lại dùng FOR UPDATE để thấy giỏ do transaction kia vừa commit.
+     * Giỏ trả về đã được chạm updatedAt và khóa dòng, nên bộ dọn giỏ bỏ quên không xóa nó giữa chừng.
+     */
+    private Long findCartId(String email, HttpSession session) {
+        Object sessionUserId = session == null ? null : session.getAttribute("id");
+        Long userId = sessionUserId instanceof Long ? (Long) sessionUserId : null;
+        if (userId == null) {
+            User user = userService.getUserByEmail(email);
+            if (user == null) {
+                return null;
             }
+            userId = user.getId();
+        }
 
-            Optional<Product> productOptional = productRepository.findById(productId);
-            if (productOptional.isPresent()) {
-                Product product = productOptional.get();
-                CartDetail existCartDetail = cartDetailRepository.findByCartAndProduct(cart, product);
-
-                if (existCartDetail == null) {
-                    CartDetail cartDetail = new CartDetail();
-                    cartDetail.setProduct(product);
-                    cartDetail.setCart(cart);
-                    cartDetail.setQuantity(quantity);
-                    cartDetail.setPrice(product.getPrice());
-                    cartDetailRepository.save(cartDetail);
-
-                    int sum = cart.getSum() + 1;
-                    cart.setSum(sum);
-                    cartRepository.save(cart);
-                    session.setAttribute("sum", sum);
-                } else {
-                    existCartDetail.setQuantity(existCartDetail.getQuantity() + quantity);
-                    cartDetailRepository.save(existCartDetail);
-                }
+        Long cartId = cartRepository.findIdByUserId(userId);
+        if (cartId != null && cartRepository.touch(cartId) == 1) {
+            return cartId;
+        }
+        cartRepository.insertIfAbsent(userId);
+        return cartRepository.lockIdByUserId(userId);
+    }
+
+    public void addProductToGuestCart(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            long productId,
+            long quantity) {
+        // Số lượng đến thẳng từ form chi tiết sản phẩm
+        if (quantity < 1) {
+            return;
+        }
+        Map<Long, Long> lines = guestCartCookie.read(request);
+        if (!lines.containsKey(productId) && lines.size() >= GuestCartCookie.MAX_LINES) {
+            return;
+        }
+        lines.merge(productId, quantity, Long::sum);
+        lines.values().removeIf(lineQuantity -> lineQuantity < 1);
+        guestCartCookie.write(response, lines);
+    }
+
+    public void deleteGuestCartLine(HttpServletRequest request, HttpServletResponse response, long productId) {
+        Map<Long, Long> lines = guestCartCookie.read(request);
+        if (lines.remove(productId) != null) {
+            guestCartCookie.write(response, lines);
+        }
+    }
+
+    /**
+     * Giỏ hàng của khách dựng từ cookie; id của mỗi CartDetail là id sản phẩm, giá là giá hiện tại.
+     */
+    public Cart getGuestCartForView(HttpServletRequest request) {
+        Map<Long, Long> lines = guestCartCookie.read(request);
+        if (lines.isEmpty()) {
+            return null;
+        }
+        Map<Long, ProductCardDTO> productsById = new HashMap<>();
+        for (ProductCardDTO card : productRepository.findCardsByIdIn(lines.keySet())) {
+            productsById.put(card.getId(), card);
+        }
+
+        Cart cart = new Cart();
+        List<CartDetail> cartDetails = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Long> line : lines.entrySet()) {
+            ProductCardDTO card = productsById.get(line.getKey());
+            if (card == null) {
+                continue;
+            }
+            Product product = new Product();
+            product.setId(card.getId());
+            product.setName(card.getName());
+            product.setImage(card.getImage());
+            product.setPrice(card.getPrice());
+
+            CartDetail cartDetail = new CartDetail();
+            cartDetail.setId(card.getId());
+            cartDetail.setProduct(product);
+            cartDetail.setCart(cart);
+            cartDetail.setQuantity(line.getValue());
+            cartDetail.setPrice(card.getPrice());
+            cartDetails.add(cartDetail);
+        }
+        cart.setSum(cartDetails.size());
+        cart.setCartDetails(cartDetails);
+        return cart;
+    }
+
+    /**
+     * Gộp giỏ hàng trong cookie của khách vào giỏ DB khi đăng nhập: một lô upsert cho mọi dòng,
+     * rồi đếm lại sum; cookie bị xóa sau khi gộp.
+     */
+    @Transactional
+    public void mergeGuestCart(HttpServletRequest request, HttpServletResponse response, String email) {
+        Map<Long, Long> lines = guestCartCookie.read(request);
+        lines.values().removeIf(quantity -> quantity < 1);
+        if (lines.isEmpty()) {
+            guestCartCookie.clear(response);
+            return;
+        }
+        HttpSession session = request.getSession(false);
+        Long cartId = findCartId(email, session);
+        if (cartId != null) {
+            cartDetailJdbcRepository.upsertQuantities(cartId, lines);
+            int sum = cartDetailJdbcRepository.refreshSum(cartId);
+            if (session != null) {
+                session.setAttribute("sum", sum);
             }
         }
+        guestCartCookie.clear(response);
     }
 
     public Cart findCartByUser(User user) {
         return cartRepository.findByUser(user);
     }
 
+    /**
+     * Giỏ hàng để hiển thị ở /cart và /checkout. Ở chế độ giỏ session, giỏ được dựng từ SessionCart
+     * mà không truy vấn DB; khi đó id của mỗi CartDetail chính là id sản phẩm.
+     */
+    public Cart getCartForView(HttpSession session) {
+        if (!sessionCartMode) {
+            return cartRepository.findWithDetailsByUserId((long) session.getAttribute("id"));
+        }
+
+        SessionCart sessionCart = getSessionCart(session);
+        if (sessionCart == null || sessionCart.getSum() == 0) {
+            return null;
+        }
+        Cart cart = new Cart();
+        cart.setSum(sessionCart.getSum());
+        List<CartDetail> cartDetails = new ArrayList<>(sessionCart.getSum());
+        for (SessionCart.Line line : sessionCart.getLines()) {
+            Product product = new Product();
+            product.setId(line.getProductId());
+            product.setName(line.getName());
+            product.setImage(line.getImage());
+            product.setPrice(line.getPrice());
+
+            CartDetail cartDetail = new CartDetail();
+            cartDetail.setId(line.getProductId());
+            cartDetail.setProduct(product);
+            cartDetail.setCart(cart);
+            cartDetail.setQuantity(line.getQuantity());
+            cartDetail.setPrice(line.getPrice());
+            cartDetails.add(cartDetail);
+        }
+        cart.setCartDetails(cartDetails);
+        return cart;
+    }
+
+    private void addProductToSessionCart(long productId, HttpSession session, long quantity) {
+        SessionCart cart = getSessionCart(session);
+        if (cart == null) {
+            return;
+        }
+
+        if (cart.getLine(productId) != null) {
+            cart.addQuantity(productId, quantity);
+        } else {
+            List<ProductCardDTO> cards = productRepository.findCardsByIdIn(List.of(productId));
+            if (cards.isEmpty()) {
+                return;
+            }
+            ProductCardDTO card = cards.get(0);
+            cart.putLine(new SessionCart.Line(productId, quantity, card.getPrice(), card.getName(), card.getImage()));
+            session.setAttribute("sum", cart.getSum());
+        }
+        saveSessionCart(session, cart);
+    }
+
+    // Nạp giỏ từ DB một lần cho mỗi session, các lần sau đọc thẳng từ session
+    private SessionCart getSessionCart(HttpSession session) {
+        Object cached = session.getAttribute(SessionCart.SESSION_ATTRIBUTE);
+        if (cached instanceof SessionCart) {
+            return (SessionCart) cached;
+        }
+        Object userId = session.getAttribute("id");
+        if (!(userId instanceof Long)) {
+            return null;
+        }
+
+        SessionCart sessionCart = new SessionCart((Long) userId);
+        Cart cart = cartRepository.findWithDetailsByUserId((Long) userId);
+        if (cart != null && cart.getCartDetails() != null) {
+            for (CartDetail cartDetail : cart.getCartDetails()) {
+                Product product = cartDetail.getProduct();
+                sessionCart.putLine(new SessionCart.Line(product.getId(), cartDetail.getQuantity(),
+                        cartDetail.getPrice(), product.getName(), product.getImage()));
+            }
+        }
+        session.setAttribute(SessionCart.SESSION_ATTRIBUTE, sessionCart);
+        return sessionCart;
+    }
+
+    // Gán lại attribute để Spring Session ghi thay đổi, rồi xếp giỏ vào hàng đợi ghi nền
+    private void saveSessionCart(HttpSession session, SessionCart cart) {
+        session.setAttribute(SessionCart.SESSION_ATTRIBUTE, cart);
+        cartWriteBehind.markDirty(cart);
+    }
+
     public void deleteCartDetail(long id, HttpSession session) {
+        if (sessionCartMode) {
+            SessionCart cart = getSessionCart(session);
+            if (cart != null && cart.removeLine(id)) {
+                session.setAttribute("sum", cart.getSum());
+                saveSessionCart(session, cart);
+            }
+            return;
+        }
+
         Optional<CartDetail> cartDetailOptional = cartDetailRepository.findById(id);
         if (cartDetailOptional.isPresent()) {
             CartDetail cartDetail = cartDetailOptional.get();
@@ -223,22 +689,71 @@ public class ProductService {
         }
     }
 
-    public void updateCartBeforeCheckout(List<CartDetail> cartDetails) {
+    /**
+     * Cập nhật số lượng trước khi thanh toán: đọc mọi dòng bằng một truy vấn (kèm kiểm tra giỏ thuộc người dùng
+     * trong session), chỉ sửa dòng có số lượng thay đổi; Hibernate gom các câu UPDATE thành lô khi commit.
+     * Số lượng dưới 1 được coi là bỏ dòng khỏi giỏ, không bao giờ được ghi xuống (và đi tới bước trừ kho).
+     */
+    @Transactional
+    public void updateCartBeforeCheckout(List<CartDetail> cartDetails, HttpSession session) {
+        if (sessionCartMode) {
+            SessionCart cart = getSessionCart(session);
+            if (cart != null) {
+                for (CartDetail cartDetail : cartDetails) {
+                    if (cartDetail.getQuantity() < 1) {
+                        cart.removeLine(cartDetail.getId());
+                    } else {
+                        cart.setQuantity(cartDetail.getId(), cartDetail.getQuantity());
+                    }
+                }
+                session.setAttribute("sum", cart.getSum());
+                saveSessionCart(session, cart);
+            }
+            return;
+        }
+
+        Object userId = session.getAttribute("id");
+        if (!(userId instanceof Long) || cartDetails.isEmpty()) {
+            return;
+        }
+        // Sửa dòng giỏ không qua Cart nên @PreUpdate không chạy: chạm updatedAt (và khóa giỏ) trước
+        cartRepository.touchByUserId((Long) userId);
+        Map<Long, Long> quantities = new HashMap<>();
         for (CartDetail cartDetail : cartDetails) {
-            Optional<CartDetail> cartDetailOptional = cartDetailRepository.findById(cartDetail.getId());
-            if (cartDetailOptional.isPresent()) {
-                CartDetail existingCartDetail = cartDetailOptional.get();
-                existingCartDetail.setQuantity(cartDetail.getQuantity());
-                cartDetailRepository.save(existingCartDetail);
+            quantities.put(cartDetail.getId(), cartDetail.getQuantity());
+        }
+
+        List<CartDetail> removed = new ArrayList<>();
+        for (CartDetail existingCartDetail
+                : cartDetailRepository.findAllByIdInAndUserId(quantities.keySet(), (Long) userId)) {
+            long quantity = quantities.get(existingCartDetail.getId());
+            if (quantity < 1) {
+                removed.add(existingCartDetail);
+            } else if (existingCartDetail.getQuantity() != quantity) {
+                // Entity đang được quản lý: dirty checking sẽ ghi khi transaction commit
+                existingCartDetail.setQuantity(quantity);
             }
         }
+        if (!removed.isEmpty()) {
+            cartDetailRepository.deleteAllInBatch(removed);
+            session.setAttribute("sum", cartDetailJdbcRepository.refreshSum(removed.get(0).getCart().getId()));
+        }
     }
 
-    public Page<Product> searchProductsByName(String keyword, Pageable pageable) {
+    public Page<ProductCardDTO> searchProductsByName(String keyword, Pageable pageable) {
         if (keyword == null || keyword.trim().isEmpty()) {
-            return productRepository.findAll(pageable);
+            return productRepository.findAllCards(pageable);
+        }
+
+        if (searchIndex.isReady()) {
+            CatalogIndex.IdPage idPage = searchIndex.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findAllInOrder(idPage.ids()), pageable, idPage.total());
         }
-        
-        return productRepository.findAll(ProductSpecs.nameLike(keyword), pageable);
+
+        return productRepository.findCards(ProductSpecs.nameLike(keyword), pageable);
+    }
+
+    public List<String> suggestProducts(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, limit);
     }
 }
@@ -0,0 +1,123 @@
+package com.phnm.laptopshop.service;
+
+import com.phnm.laptopshop.domain.OrderDetail;
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
+import com.phnm.laptopshop.repository.OrderDetailRepository;
+import com.phnm.laptopshop.repository.ProductRepository;
+import com.phnm.laptopshop.service.recommendation.CoPurchaseIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class RecommendationService {
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+
+    private final OrderDetailRepository orderDetailRepository;
+    private final ProductRepository productRepository;
+    private final CoPurchaseIndex coPurchaseIndex;
+
+    public RecommendationService(
+            OrderDetailRepository orderDetailRepository,
+            ProductRepository productRepository,
+            CoPurchaseIndex coPurchaseIndex) {
+        this.orderDetailRepository = orderDetailRepository;
+        this.productRepository = productRepository;
+        this.coPurchaseIndex = coPurchaseIndex;
+    }
+
+    /**
+     * Dựng lại ma trận mua cùng từ toàn bộ lịch sử order_detail một lần khi khởi động,
+     * đọc theo từng lô order_id tăng dần để không nạp hết lịch sử vào bộ nhớ.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildCoPurchaseIndex() {
+        List<long[]> baskets = new ArrayList<>();
+        long afterOrderId = 0;
+        while (true) {
+            List<Object[]> lines = orderDetailRepository.findBasketLinesAfter(
+                    afterOrderId, PageRequest.ofSize(REBUILD_CHUNK_SIZE));
+            if (lines.isEmpty()) {
+                break;
+            }
+
+            // Lô đầy có thể cắt ngang đơn cuối cùng: bỏ đơn đó lại cho lô sau, trừ khi cả lô chỉ có một đơn
+            long lastOrderId = (long) lines.get(lines.size() - 1)[0];
+            boolean fullChunk = lines.size() == REBUILD_CHUNK_SIZE;
+            boolean singleOrder = (long) lines.get(0)[0] == lastOrderId;
+            long currentOrderId = -1;
+            List<Long> basket = new ArrayList<>();
+            for (Object[] line : lines) {
+                long orderId = (long) line[0];
+                if (fullChunk && !singleOrder && orderId == lastOrderId) {
+                    break;
+                }
+                if (orderId != currentOrderId && !basket.isEmpty()) {
+                    baskets.add(toArray(basket));
+                    basket.clear();
+                }
+                currentOrderId = orderId;
+                basket.add((long) line[1]);
+            }
+            if (!basket.isEmpty()) {
+                baskets.add(toArray(basket));
+            }
+
+            if (!fullChunk) {
+                break;
+            }
+            afterOrderId = singleOrder ? lastOrderId : currentOrderId;
+        }
+        coPurchaseIndex.rebuild(baskets);
+    }
+
+    /**
+     * Cập nhật ma trận ngay khi một đơn hàng được tạo.
+     */
+    public void recordOrder(List<OrderDetail> orderDetails) {
+        List<Long> basket = new ArrayList<>(orderDetails.size());
+        for (OrderDetail orderDetail : orderDetails) {
+            basket.add(orderDetail.getProduct().getId());
+        }
+        if (basket.size() > 1) {
+            coPurchaseIndex.record(toArray(basket));
+        }
+    }
+
+    /**
+     * Sản phẩm "khách hàng cũng mua" cho trang chi tiết; thứ hạng lấy từ bộ nhớ,
+     * chỉ thông tin thẻ sản phẩm được đọc theo khóa chính.
+     */
+    public List<ProductCardDTO> getAlsoBought(long productId, int limit) {
+        List<Long> ids = coPurchaseIndex.topNeighbours(productId, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductCardDTO> productsById = new HashMap<>();
+        for (ProductCardDTO product : productRepository.findCardsByIdIn(ids)) {
+            productsById.put(product.getId(), product);
+        }
+        List<ProductCardDTO> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductCardDTO product = productsById.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private long[] toArray(List<Long> basket) {
+        long[] ids = new long[basket.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = basket.get(i);
+        }
+        return ids;
+    }
+}
@@ -7,7 +7,10 @@ import com.phnm.laptopshop.repository.OrderRepository;
 import com.phnm.laptopshop.repository.ProductRepository;
 import com.phnm.laptopshop.repository.RoleRepository;
 import com.phnm.laptopshop.repository.UserRepository;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import com.phnm.laptopshop.service.pagination.KeysetPage;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +39,12 @@ public class UserService {
         return userRepository.findAll(pageable);
     }
 
+    public KeysetPage<User> getAllUsersAfter(KeysetCursor cursor, int size) {
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(
+                cursor == null ? 0 : cursor.getId(), PageRequest.ofSize(size + 1));
+        return KeysetPage.of(rows, size, user -> KeysetCursor.ofId(user.getId()));
+    }
+
     public User saveUser(User newUser) {
         User savedUser = userRepository.save(newUser);
         System.out.println(savedUser);
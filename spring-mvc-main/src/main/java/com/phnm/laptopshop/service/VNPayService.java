@@ -3,24 +3,46 @@ package com.phnm.laptopshop.service;
 import com.phnm.laptopshop.config.VNPayConfig;
 import com.phnm.laptopshop.domain.Order;
 import com.phnm.laptopshop.repository.OrderRepository;
+import com.phnm.laptopshop.repository.OrderSummaryRepository;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @Service
 public class VNPayService {
 
+    static final String PENDING = "Chờ thanh toán";
+    static final String PAID = "Đã thanh toán";
+    // Đã thanh toán nhưng giữ hàng hết hạn và kho không còn đủ, chờ admin xử lý
+    public static final String STOCK_SHORT = "Thiếu hàng";
+
+    private static final Logger log = LoggerFactory.getLogger(VNPayService.class);
+
     private final OrderRepository orderRepository;
+    private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public VNPayService(OrderRepository orderRepository) {
+    public VNPayService(OrderRepository orderRepository, ProductService productService,
+                        InventoryService inventoryService, OrderSummaryRepository orderSummaryRepository,
+                        TransactionTemplate transactionTemplate) {
         this.orderRepository = orderRepository;
+        this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -78,43 +100,75 @@ public class VNPayService {
                 return response;
             }
             
-            // Kiểm tra đơn hàng tồn tại
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                response.put("status", "ERROR");
-                response.put("message", "Order not found");
-                return response;
-            }
-            
-            Order order = orderOpt.get();
-            
             // Nếu giao dịch thành công (Code = 00)
             if ("00".equals(vnp_ResponseCode) && "00".equals(vnp_TransactionStatus)) {
-                // Cập nhật thông tin thanh toán
-                order.setVnpTxnRef(vnp_TxnRef);
-                order.setVnpAmount(vnp_Amount);
-                order.setVnpBankCode(vnp_BankCode);
-                order.setVnpPayDate(vnp_PayDate);
-                order.setVnpTransactionStatus(vnp_TransactionStatus);
-                order.setVnpOrderInfo(vnp_OrderInfo);
-                order.setStatus("Đã thanh toán");
-                
-                orderRepository.save(order);
-                
+                String outcome = transactionTemplate.execute(status -> {
+                    // VNPay có thể gọi lại callback, kể cả đồng thời: chỉ lần chuyển được đơn từ "Chờ thanh toán"
+                    // sang "Đã thanh toán" (khóa dòng orders) mới giữ kho và ghi nhận số đã bán
+                    if (orderRepository.transitionStatus(List.of(orderId), PENDING, PAID) == 0) {
+                        return orderRepository.existsById(orderId) ? "DUPLICATE" : null;
+                    }
+                    // Nạp sau câu UPDATE nên entity đã mang trạng thái mới, lần flush không ghi đè lại
+                    Order order = orderRepository.findById(orderId).orElseThrow();
+                    order.setVnpTxnRef(vnp_TxnRef);
+                    order.setVnpAmount(vnp_Amount);
+                    order.setVnpBankCode(vnp_BankCode);
+                    order.setVnpPayDate(vnp_PayDate);
+                    order.setVnpTransactionStatus(vnp_TransactionStatus);
+                    order.setVnpOrderInfo(vnp_OrderInfo);
+
+                    // Ghi các trường thanh toán trước savepoint để rollback kho không cuốn theo chúng
+                    orderRepository.flush();
+                    Object savepoint = status.createSavepoint();
+                    try {
+                        inventoryService.confirm(order);
+                    } catch (OutOfStockException e) {
+                        // Tiền đã trừ nên không thể từ chối: đánh dấu đơn để admin hoàn tiền hoặc chờ nhập hàng
+                        // Ghi bằng UPDATE có điều kiện như bước PENDING → PAID, không dựa vào dirty checking của
+                        // entity sau khi rollback savepoint, để orders và order_summary luôn cùng trạng thái
+                        status.rollbackToSavepoint(savepoint);
+                        orderRepository.transitionStatus(List.of(orderId), PAID, STOCK_SHORT);
+                        orderSummaryRepository.updateStatus(orderId, STOCK_SHORT);
+                        log.warn("Order {} was paid after its reservation expired and {} is out of stock",
+                                orderId, e.getProductName());
+                        return STOCK_SHORT;
+                    }
+                    status.releaseSavepoint(savepoint);
+                    orderSummaryRepository.updateStatus(orderId, PAID);
+                    productService.recordSales(order.getOrderDetails());
+                    return PAID;
+                });
+
+                if (outcome == null) {
+                    response.put("status", "ERROR");
+                    response.put("message", "Order not found");
+                    return response;
+                }
                 response.put("status", "SUCCESS");
                 response.put("message", "Payment successful");
-                response.put("orderId", String.valueOf(order.getId()));
+                response.put("orderId", String.valueOf(orderId));
+                if (STOCK_SHORT.equals(outcome)) {
+                    response.put("stockShort", "true");
+                }
             } else {
-                // Giao dịch thất bại hoặc hủy bỏ
-                order.setVnpTxnRef(vnp_TxnRef);
-                order.setVnpTransactionStatus(vnp_TransactionStatus);
-                order.setStatus("Chờ thanh toán");
-                
-                orderRepository.save(order);
-                
+                // Giao dịch thất bại hoặc hủy bỏ: đơn vẫn chờ thanh toán; chỉ ghi nhận khi đơn chưa được thanh toán
+                // bởi một callback khác, rồi trả lại kho đã giữ, không chờ tới khi giữ hàng hết hạn
+                Boolean recorded = transactionTemplate.execute(status -> {
+                    if (orderRepository.recordFailedPayment(orderId, vnp_TxnRef, vnp_TransactionStatus, PENDING) == 0) {
+                        return orderRepository.existsById(orderId);
+                    }
+                    inventoryService.release(orderId);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(recorded)) {
+                    response.put("status", "ERROR");
+                    response.put("message", "Order not found");
+                    return response;
+                }
+
                 response.put("status", "FAILED");
                 response.put("message", "Payment failed or cancelled");
-                response.put("orderId", String.valueOf(order.getId()));
+                response.put("orderId", String.valueOf(orderId));
             }
         } catch (Exception e) {
             response.put("status", "ERROR");
@@ -0,0 +1,96 @@
+package com.phnm.laptopshop.service.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Xóa giỏ hàng không thay đổi quá app.cart.abandoned-ttl-days ngày. Mỗi lô tối đa CHUNK_SIZE giỏ
+ * được chọn qua chỉ mục carts.updated_at và xóa trong một transaction ngắn riêng, nên không giữ khóa lâu
+ * trên carts/cart_detail. Liên kết User.cart nằm ở carts.user_id nên xóa dòng carts là đủ, không nạp entity.
+ * Giỏ được chọn bằng SELECT ... FOR UPDATE: thao tác giỏ nào cũng chạm updated_at (khóa dòng giỏ) trước khi
+ * ghi cart_detail, nên hoặc nó chờ lô xóa xong rồi tạo lại giỏ, hoặc lô này thấy updated_at mới và bỏ qua giỏ đó.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    public record SweepResult(int carts, int cartDetails, int backfilled) {
+    }
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlDays;
+
+    public AbandonedCartSweeper(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.cart.abandoned-ttl-days:30}") long ttlDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlDays = ttlDays;
+    }
+
+    @Scheduled(cron = "${app.cart.sweep-cron:0 30 3 * * *}")
+    public SweepResult sweep() {
+        int backfilled = backfillUpdatedAt();
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", LocalDateTime.now().minusDays(ttlDays))
+                .addValue("limit", CHUNK_SIZE);
+        int carts = 0;
+        int cartDetails = 0;
+        while (true) {
+            int[] removed = transactionTemplate.execute(status -> deleteChunk(params));
+            carts += removed[0];
+            cartDetails += removed[1];
+            if (removed[0] < CHUNK_SIZE) {
+                break;
+            }
+        }
+
+        SweepResult result = new SweepResult(carts, cartDetails, backfilled);
+        log.info("Abandoned cart sweep: removed {} carts and {} cart lines, backfilled {} timestamps",
+                result.carts(), result.cartDetails(), result.backfilled());
+        return result;
+    }
+
+    // Trả về {số giỏ, số dòng giỏ} đã xóa trong lô này
+    private int[] deleteChunk(MapSqlParameterSource params) {
+        List<Long> cartIds = jdbcTemplate.queryForList(
+                "select id from carts where updated_at < :cutoff order by updated_at limit :limit for update",
+                params, Long.class);
+        if (cartIds.isEmpty()) {
+            return new int[]{0, 0};
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", cartIds)
+                .addValue("cutoff", params.getValue("cutoff"));
+        int cartDetails = jdbcTemplate.update("delete from cart_detail where cart_id in (:ids)", ids);
+        int carts = jdbcTemplate.update("delete from carts where id in (:ids) and updated_at < :cutoff", ids);
+        return new int[]{carts, cartDetails};
+    }
+
+    // Giỏ tạo trước khi có cột updated_at được tính mốc từ lần chạy đầu tiên
+    private int backfillUpdatedAt() {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", CHUNK_SIZE);
+        int total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "update carts set updated_at = now() where updated_at is null limit :limit", params));
+            total += updated;
+        } while (updated == CHUNK_SIZE);
+        return total;
+    }
+}
@@ -0,0 +1,115 @@
+package com.phnm.laptopshop.service.cart;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ghi nền giỏ hàng session xuống carts/cart_detail. Mỗi người dùng chỉ giữ ảnh chụp mới nhất,
+ * nên nhiều lần thêm/xóa liên tiếp được gộp thành một lần ghi (xóa dòng cũ + chèn lô dòng mới).
+ */
+@Component
+public class CartWriteBehind {
+
+    // Số khóa cố định cho mọi người dùng (lock striping), không giữ một khóa riêng cho từng user
+    static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, SessionCart> pending = new ConcurrentHashMap<>();
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+
+    public CartWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    public void markDirty(SessionCart cart) {
+        pending.put(cart.getUserId(), cart.copy());
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:2000}")
+    public void flushAll() {
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            flush(userId);
+        }
+    }
+
+    /**
+     * Ghi ngay giỏ hàng đang chờ của một người dùng; chờ nếu luồng nền đang ghi giỏ đó,
+     * nên sau khi hàm trả về, DB đã có trạng thái giỏ mới nhất.
+     */
+    public void flush(long userId) {
+        synchronized (lockFor(userId)) {
+            SessionCart cart = pending.remove(userId);
+            if (cart != null) {
+                transactionTemplate.executeWithoutResult(status -> write(cart));
+            }
+        }
+    }
+
+    // Bỏ ảnh chụp đang chờ, dùng sau khi giỏ hàng đã được xóa vì đặt hàng xong
+    public void discard(long userId) {
+        synchronized (lockFor(userId)) {
+            pending.remove(userId);
+        }
+    }
+
+    private Object lockFor(long userId) {
+        return userLocks[Math.floorMod(Long.hashCode(userId), LOCK_STRIPES)];
+    }
+
+    private void write(SessionCart cart) {
+        List<Long> cartIds = jdbcTemplate.queryForList(
+                "select id from carts where user_id = ?", Long.class, cart.getUserId());
+        List<SessionCart.Line> lines = cart.getLines();
+
+        if (lines.isEmpty()) {
+            if (!cartIds.isEmpty()) {
+                jdbcTemplate.update("delete from cart_detail where cart_id = ?", cartIds.get(0));
+                jdbcTemplate.update("delete from carts where id = ?", cartIds.get(0));
+            }
+            return;
+        }
+
+        long cartId;
+        // Cập nhật trước để khóa dòng giỏ; 0 dòng nghĩa là giỏ vừa bị bộ dọn giỏ xóa, tạo lại
+        if (cartIds.isEmpty() || jdbcTemplate.update(
+                "update carts set sum = ?, updated_at = now() where id = ?", cart.getSum(), cartIds.get(0)) == 0) {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        "insert into carts (user_id, sum, updated_at) values (?, ?, now())", Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, cart.getUserId());
+                ps.setInt(2, cart.getSum());
+                return ps;
+            }, keyHolder);
+            cartId = keyHolder.getKey().longValue();
+        } else {
+            cartId = cartIds.get(0);
+            jdbcTemplate.update("delete from cart_detail where cart_id = ?", cartId);
+        }
+
+        jdbcTemplate.batchUpdate(
+                "insert into cart_detail (cart_id, product_id, quantity, price) values (?, ?, ?, ?)",
+                lines, lines.size(), (ps, line) -> {
+                    ps.setLong(1, cartId);
+                    ps.setLong(2, line.getProductId());
+                    ps.setLong(3, line.getQuantity());
+                    ps.setDouble(4, line.getPrice());
+                });
+    }
+}
@@ -0,0 +1,139 @@
+package com.phnm.laptopshop.service.cart;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Giỏ hàng của khách chưa đăng nhập, lưu hoàn toàn trong cookie đã ký HMAC-SHA256 nên server không giữ
+ * trạng thái nào (không tạo session). Nội dung là "idSảnPhẩm:sốLượng,..." mã hóa base64url, kèm chữ ký.
+ */
+@Component
+public class GuestCartCookie {
+
+    public static final String COOKIE_NAME = "GUEST_CART";
+    public static final int MAX_LINES = 30;
+    private static final int MAX_AGE_SECONDS = 7 * 24 * 60 * 60;
+
+    private final SecretKeySpec key;
+
+    public GuestCartCookie(@Value("${app.cart.guest-cookie-secret:}") String secret) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            // Không cấu hình: dùng khóa ngẫu nhiên, cookie cũ mất hiệu lực khi khởi động lại
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+    }
+
+    /**
+     * Các dòng giỏ hàng (id sản phẩm → số lượng) theo thứ tự thêm; cookie thiếu, sai chữ ký hoặc hỏng thì rỗng.
+     */
+    public Map<Long, Long> read(HttpServletRequest request) {
+        Map<Long, Long> lines = new LinkedHashMap<>();
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return lines;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                String payload = verify(cookie.getValue());
+                if (payload != null) {
+                    parse(payload, lines);
+                }
+            }
+        }
+        return lines;
+    }
+
+    public void write(HttpServletResponse response, Map<Long, Long> lines) {
+        if (lines.isEmpty()) {
+            clear(response);
+            return;
+        }
+        StringBuilder payload = new StringBuilder();
+        for (Map.Entry<Long, Long> line : lines.entrySet()) {
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(line.getKey()).append(':').append(line.getValue());
+        }
+        String encoded = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        response.addCookie(newCookie(encoded + "." + sign(encoded), MAX_AGE_SECONDS));
+    }
+
+    public void clear(HttpServletResponse response) {
+        response.addCookie(newCookie("", 0));
+    }
+
+    private Cookie newCookie(String value, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+
+    private String verify(String value) {
+        int dot = value == null ? -1 : value.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String encoded = value.substring(0, dot);
+        byte[] expected = sign(encoded).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void parse(String payload, Map<Long, Long> lines) {
+        for (String line : payload.split(",")) {
+            String[] parts = line.split(":");
+            if (parts.length != 2 || lines.size() >= MAX_LINES) {
+                continue;
+            }
+            try {
+                long productId = Long.parseLong(parts[0]);
+                long quantity = Long.parseLong(parts[1]);
+                if (quantity > 0) {
+                    lines.put(productId, quantity);
+                }
+            } catch (NumberFormatException e) {
+                // bỏ qua dòng hỏng
+            }
+        }
+    }
+
+    private String sign(String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(data.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.phnm.laptopshop.service.cart;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giỏ hàng gọn nằm trong session (chế độ app.cart.session-mode): mỗi dòng chỉ giữ id sản phẩm, số lượng
+ * và ảnh chụp giá/tên/ảnh lúc thêm vào giỏ. Session lưu bằng JDBC nên lớp này phải Serializable.
+ */
+public class SessionCart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String SESSION_ATTRIBUTE = "sessionCart";
+
+    public static class Line implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long productId;
+        private long quantity;
+        private final double price;
+        private final String name;
+        private final String image;
+
+        public Line(long productId, long quantity, double price, String name, String image) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.price = price;
+            this.name = name;
+            this.image = image;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getImage() {
+            return image;
+        }
+    }
+
+    private final long userId;
+    private final Map<Long, Line> lines = new LinkedHashMap<>();
+
+    public SessionCart(long userId) {
+        this.userId = userId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Line getLine(long productId) {
+        return lines.get(productId);
+    }
+
+    public void putLine(Line line) {
+        lines.put(line.getProductId(), line);
+    }
+
+    public void addQuantity(long productId, long quantity) {
+        lines.get(productId).quantity += quantity;
+    }
+
+    public void setQuantity(long productId, long quantity) {
+        Line line = lines.get(productId);
+        if (line != null) {
+            line.quantity = quantity;
+        }
+    }
+
+    public boolean removeLine(long productId) {
+        return lines.remove(productId) != null;
+    }
+
+    public List<Line> getLines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    public int getSum() {
+        return lines.size();
+    }
+
+    public double getTotalPrice() {
+        double total = 0;
+        for (Line line : lines.values()) {
+            total += line.getPrice() * line.getQuantity();
+        }
+        return total;
+    }
+
+    // Ảnh chụp bất biến để luồng ghi nền không đọc giỏ đang bị request sửa
+    public SessionCart copy() {
+        SessionCart copy = new SessionCart(userId);
+        for (Line line : lines.values()) {
+            copy.putLine(new Line(line.productId, line.quantity, line.price, line.name, line.image));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,359 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.dto.ProductCriteriaDTO;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Chỉ mục sản phẩm trong bộ nhớ cho bộ lọc trang /product.
+ * Mỗi sản phẩm chiếm một "slot"; mỗi hãng, mục đích sử dụng và khoảng giá giữ một bitmap các slot,
+ * nên một ProductCriteriaDTO được trả lời bằng phép OR/AND trên bitmap thay vì truy vấn MySQL.
+ * Các thứ tự sắp xếp (id, giá, số đã bán) được giữ sẵn dưới dạng mảng slot đã xếp hạng.
+ */
+@Component
+public class CatalogIndex {
+
+    public enum SortOrder {
+        ID_ASC, PRICE_ASC, PRICE_DESC, SOLD_DESC, NEWEST;
+
+        // Các thứ tự này duyệt mảng slot đã sắp xếp tăng dần theo chiều ngược lại
+        boolean isDescending() {
+            return this == PRICE_DESC || this == SOLD_DESC || this == NEWEST;
+        }
+    }
+
+    /**
+     * Một trang id sản phẩm theo đúng thứ tự sắp xếp, kèm tổng số sản phẩm khớp bộ lọc.
+     */
+    public record IdPage(List<Long> ids, long total) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[64];
+    private double[] prices = new double[64];
+    private long[] solds = new long[64];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slotCount = 0;
+
+    private final Map<String, BitSet> factories = new HashMap<>();
+    private final Map<String, BitSet> targets = new HashMap<>();
+    private final BitSet[] priceBuckets = new BitSet[PriceRange.values().length];
+
+    // Thứ tự slot đã sắp xếp, tính lại khi có thay đổi
+    private volatile int[] slotsById;
+    private volatile int[] slotsByPrice;
+    private volatile int[] slotsBySold;
+
+    private volatile boolean ready = false;
+
+    public CatalogIndex() {
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceBuckets[i] = new BitSet();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Iterable<Product> products) {
+        lock.writeLock().lock();
+        try {
+            live.clear();
+            slotById.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            factories.clear();
+            targets.clear();
+            for (BitSet bucket : priceBuckets) {
+                bucket.clear();
+            }
+            for (Product product : products) {
+                putLocked(product);
+            }
+            invalidateOrders();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            putLocked(product);
+            invalidateOrders();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(productId);
+            if (slot != null) {
+                clearSlot(slot);
+                freeSlots.push(slot);
+                invalidateOrders();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cộng số lượng đã bán khi đơn hàng được chốt; chỉ bảng xếp hạng bán chạy phải tính lại.
+     */
+    public void addSold(long productId, long quantity) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(productId);
+            if (slot != null) {
+                solds[slot] += quantity;
+                slotsBySold = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public IdPage query(ProductCriteriaDTO criteria, SortOrder sortOrder, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(criteria);
+            int[] order = orderFor(sortOrder);
+            boolean descending = sortOrder.isDescending();
+
+            List<Long> pageIds = new ArrayList<>(limit);
+            int seen = 0;
+            for (int i = 0; i < order.length && pageIds.size() < limit; i++) {
+                int slot = order[descending ? order.length - 1 - i : i];
+                if (matches.get(slot)) {
+                    if (seen >= offset) {
+                        pageIds.add(ids[slot]);
+                    }
+                    seen++;
+                }
+            }
+            return new IdPage(pageIds, matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(ProductCriteriaDTO criteria) {
+        lock.readLock().lock();
+        try {
+            return matches(criteria).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Phân trang keyset trên chỉ mục: trả về tối đa limit id nằm sau con trỏ (giá, id) theo thứ tự sortOrder.
+     */
+    public List<Long> queryAfter(ProductCriteriaDTO criteria, SortOrder sortOrder, KeysetCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(criteria);
+            int[] order = orderFor(sortOrder);
+            boolean descending = sortOrder.isDescending();
+
+            List<Long> pageIds = new ArrayList<>(limit);
+            for (int i = 0; i < order.length && pageIds.size() < limit; i++) {
+                int slot = order[descending ? order.length - 1 - i : i];
+                if (matches.get(slot) && (after == null || isAfter(slot, sortOrder, after))) {
+                    pageIds.add(ids[slot]);
+                }
+            }
+            return pageIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matches(ProductCriteriaDTO criteria) {
+        BitSet matches = (BitSet) live.clone();
+        and(matches, unionOf(factories, criteria.getFactory()));
+        and(matches, unionOf(targets, criteria.getTarget()));
+        and(matches, priceUnion(criteria.getPrice()));
+        return matches;
+    }
+
+    private boolean isAfter(int slot, SortOrder sortOrder, KeysetCursor after) {
+        switch (sortOrder) {
+            case PRICE_ASC:
+                return prices[slot] > after.getSortValue()
+                        || (prices[slot] == after.getSortValue() && ids[slot] > after.getId());
+            case PRICE_DESC:
+                return prices[slot] < after.getSortValue()
+                        || (prices[slot] == after.getSortValue() && ids[slot] < after.getId());
+            case SOLD_DESC:
+                return solds[slot] < after.getSortValue()
+                        || (solds[slot] == after.getSortValue() && ids[slot] < after.getId());
+            case NEWEST:
+                return ids[slot] < after.getId();
+            default:
+                return ids[slot] > after.getId();
+        }
+    }
+
+    private int[] orderFor(SortOrder sortOrder) {
+        switch (sortOrder) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return orderByPrice();
+            case SOLD_DESC:
+                return orderBySold();
+            default:
+                return orderById();
+        }
+    }
+
+    private void putLocked(Product product) {
+        Integer slot = slotById.get(product.getId());
+        if (slot != null) {
+            clearSlot(slot);
+        } else {
+            slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            ensureCapacity(slot + 1);
+            slotById.put(product.getId(), slot);
+        }
+
+        ids[slot] = product.getId();
+        prices[slot] = product.getPrice();
+        solds[slot] = product.getSold();
+        live.set(slot);
+        if (product.getFactory() != null) {
+            factories.computeIfAbsent(product.getFactory(), k -> new BitSet()).set(slot);
+        }
+        if (product.getTarget() != null) {
+            targets.computeIfAbsent(product.getTarget(), k -> new BitSet()).set(slot);
+        }
+        for (PriceRange range : PriceRange.values()) {
+            if (range.contains(product.getPrice())) {
+                priceBuckets[range.ordinal()].set(slot);
+            }
+        }
+    }
+
+    private void clearSlot(int slot) {
+        live.clear(slot);
+        factories.values().forEach(bitmap -> bitmap.clear(slot));
+        targets.values().forEach(bitmap -> bitmap.clear(slot));
+        for (BitSet bucket : priceBuckets) {
+            bucket.clear(slot);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > ids.length) {
+            int newLength = Math.max(size, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            prices = Arrays.copyOf(prices, newLength);
+            solds = Arrays.copyOf(solds, newLength);
+        }
+    }
+
+    private void invalidateOrders() {
+        slotsById = null;
+        slotsByPrice = null;
+        slotsBySold = null;
+    }
+
+    private int[] orderById() {
+        int[] order = slotsById;
+        if (order == null) {
+            order = sortedSlots(Comparator.comparingLong(slot -> ids[slot]));
+            slotsById = order;
+        }
+        return order;
+    }
+
+    private int[] orderByPrice() {
+        int[] order = slotsByPrice;
+        if (order == null) {
+            order = sortedSlots(Comparator.<Integer>comparingDouble(slot -> prices[slot])
+                    .thenComparingLong(slot -> ids[slot]));
+            slotsByPrice = order;
+        }
+        return order;
+    }
+
+    private int[] orderBySold() {
+        int[] order = slotsBySold;
+        if (order == null) {
+            order = sortedSlots(Comparator.<Integer>comparingLong(slot -> solds[slot])
+                    .thenComparingLong(slot -> ids[slot]));
+            slotsBySold = order;
+        }
+        return order;
+    }
+
+    private int[] sortedSlots(Comparator<Integer> comparator) {
+        return IntStream.range(0, slotCount)
+                .filter(live::get)
+                .boxed()
+                .sorted(comparator)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // Danh sách rỗng hoặc không truyền được coi như không lọc theo tiêu chí đó
+    private BitSet unionOf(Map<String, BitSet> bitmaps, Optional<List<String>> values) {
+        if (values == null || values.isEmpty() || values.get().isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (String value : values.get()) {
+            BitSet bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    private BitSet priceUnion(Optional<List<String>> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet union = null;
+        for (String value : values.get()) {
+            PriceRange range = PriceRange.fromSlug(value);
+            if (range != null) {
+                if (union == null) {
+                    union = new BitSet();
+                }
+                union.or(priceBuckets[range.ordinal()]);
+            }
+        }
+        return union;
+    }
+
+    private void and(BitSet matches, BitSet filter) {
+        if (filter != null) {
+            matches.and(filter);
+        }
+    }
+}
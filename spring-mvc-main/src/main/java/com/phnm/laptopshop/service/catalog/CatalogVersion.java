@@ -0,0 +1,23 @@
+package com.phnm.laptopshop.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Số phiên bản của danh mục sản phẩm, tăng mỗi khi sản phẩm được tạo, sửa hoặc xóa.
+ * Các cache đọc (trang chủ, kết quả lọc...) so sánh phiên bản để biết dữ liệu đã cũ.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
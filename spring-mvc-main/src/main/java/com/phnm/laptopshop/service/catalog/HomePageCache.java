@@ -0,0 +1,44 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache danh sách sản phẩm của trang chủ "/". Chỉ nạp lại từ DB khi CatalogVersion đã thay đổi.
+ */
+@Component
+public class HomePageCache {
+
+    private static final class Entry {
+        final long version;
+        final List<ProductCardDTO> products;
+
+        Entry(long version, List<ProductCardDTO> products) {
+            this.version = version;
+            this.products = products;
+        }
+    }
+
+    private final CatalogVersion catalogVersion;
+    private volatile Entry entry;
+
+    public HomePageCache(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    public List<ProductCardDTO> getProducts(Supplier<List<ProductCardDTO>> loader) {
+        long version = catalogVersion.current();
+        Entry current = entry;
+        if (current != null && current.version == version) {
+            return current.products;
+        }
+
+        // Đọc phiên bản trước khi nạp: nếu có ghi xen giữa, lần gọi sau sẽ thấy phiên bản mới và nạp lại
+        List<ProductCardDTO> products = List.copyOf(loader.get());
+        entry = new Entry(version, products);
+        return products;
+    }
+}
@@ -0,0 +1,48 @@
+package com.phnm.laptopshop.service.catalog;
+
+/**
+ * Các khoảng giá dùng cho bộ lọc "Mức giá" ở trang /product.
+ * Dùng chung cho Specification (ProductService) và CatalogIndex để hai đường lọc luôn cho cùng kết quả.
+ */
+public enum PriceRange {
+    DUOI_10_TRIEU("duoi-10-trieu", 0, 10000000),
+    TU_10_DEN_15_TRIEU("10-15-trieu", 10000000, 15000000),
+    TU_15_DEN_20_TRIEU("15-20-trieu", 15000000, 20000000),
+    TREN_20_TRIEU("tren-20-trieu", 20000000, 200000000);
+
+    private final String slug;
+    private final double min;
+    private final double max;
+
+    PriceRange(String slug, double min, double max) {
+        this.slug = slug;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    // Giống BETWEEN trong SQL: bao gồm cả hai đầu mút
+    public boolean contains(double price) {
+        return price >= min && price <= max;
+    }
+
+    public static PriceRange fromSlug(String slug) {
+        for (PriceRange range : values()) {
+            if (range.slug.equals(slug)) {
+                return range;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.dto.ProductCardDTO;
+import com.phnm.laptopshop.domain.dto.ProductCriteriaDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Cache LRU kết quả lọc trang /product: khóa là dạng chuẩn hóa của ProductCriteriaDTO (danh sách đã sắp xếp,
+ * thứ tự sắp xếp và trang), giá trị là danh sách thẻ sản phẩm đã đọc từ DB cùng tổng số sản phẩm khớp,
+ * nên trúng cache thì không cần truy vấn nào. Danh sách id thì CatalogIndex tự tính rất nhanh, không cần cache.
+ * Toàn bộ cache bị bỏ khi CatalogVersion thay đổi (sản phẩm được tạo, sửa hoặc xóa).
+ */
+@Component
+public class QueryResultCache {
+
+    static final int MAX_ENTRIES = 512;
+
+    public record CardPage(List<ProductCardDTO> cards, long total) {
+    }
+
+    private final CatalogVersion catalogVersion;
+    private final Map<String, CardPage> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CardPage> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private long version;
+
+    public QueryResultCache(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+        this.version = catalogVersion.current();
+    }
+
+    public static String keyOf(ProductCriteriaDTO criteria, CatalogIndex.SortOrder sortOrder, long offset, int size) {
+        return "f=" + canonical(criteria.getFactory())
+                + "|t=" + canonical(criteria.getTarget())
+                + "|p=" + canonical(criteria.getPrice())
+                + "|s=" + sortOrder
+                + "|o=" + offset
+                + "|n=" + size;
+    }
+
+    public synchronized CardPage get(String key) {
+        dropIfStale();
+        return entries.get(key);
+    }
+
+    /**
+     * Lưu kết quả đã tính ở phiên bản loadedVersion (đọc trước khi truy vấn).
+     * Nếu danh mục đã đổi trong lúc truy vấn thì bỏ qua, tránh lưu kết quả cũ dưới phiên bản mới.
+     */
+    public synchronized void put(String key, long loadedVersion, CardPage cardPage) {
+        dropIfStale();
+        if (loadedVersion == version) {
+            entries.put(key, new CardPage(List.copyOf(cardPage.cards()), cardPage.total()));
+        }
+    }
+
+    private void dropIfStale() {
+        long current = catalogVersion.current();
+        if (current != version) {
+            entries.clear();
+            version = current;
+        }
+    }
+
+    // Bỏ giá trị rỗng, loại trùng và sắp xếp để ?factory=DELL,ASUS và ?factory=ASUS,DELL dùng chung một khóa
+    private static String canonical(Optional<List<String>> values) {
+        if (values == null || values.isEmpty()) {
+            return "";
+        }
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String value : values.get()) {
+            if (value != null && !value.isBlank()) {
+                sorted.add(value);
+            }
+        }
+        return String.join(",", sorted);
+    }
+}
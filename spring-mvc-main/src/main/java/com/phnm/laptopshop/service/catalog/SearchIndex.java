@@ -0,0 +1,203 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo (inverted index) cho /search trên name, shortDesc và factory của sản phẩm.
+ * Mỗi trigram (đã bỏ dấu) trỏ tới các sản phẩm chứa nó cùng trọng số của trường tốt nhất;
+ * kết quả được xếp hạng theo tổng trọng số các trigram khớp.
+ * Từ khóa ngắn hơn một trigram ("hp", "as") không có gram để tra nên được so khớp chuỗi con trên văn bản
+ * đã bỏ dấu của sản phẩm, như LIKE %q% trước đây.
+ */
+@Component
+public class SearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int FACTORY_WEIGHT = 2;
+    private static final int SHORT_DESC_WEIGHT = 1;
+
+    // Tỉ lệ trigram của từ khóa tối thiểu phải khớp, cho phép gõ sai một vài ký tự
+    private static final double MIN_COVERAGE = 0.7;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> gramsByProduct = new HashMap<>();
+    // Tên, hãng, mô tả ngắn đã bỏ dấu, dùng cho từ khóa ngắn
+    private final Map<Long, String[]> foldedTextByProduct = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Iterable<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            gramsByProduct.clear();
+            foldedTextByProduct.clear();
+            for (Product product : products) {
+                putLocked(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            putLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CatalogIndex.IdPage search(String keyword, int offset, int limit) {
+        Set<String> queryGrams = new LinkedHashSet<>();
+        List<String> shortTokens = new ArrayList<>();
+        for (String token : TextFolding.tokens(keyword)) {
+            if (token.length() < TextFolding.GRAM_SIZE) {
+                shortTokens.add(token);
+            } else {
+                queryGrams.addAll(TextFolding.grams(token));
+            }
+        }
+        if (queryGrams.isEmpty() && shortTokens.isEmpty()) {
+            return new CatalogIndex.IdPage(List.of(), 0);
+        }
+
+        Map<Long, int[]> hits = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String gram : queryGrams) {
+                Map<Long, Integer> posting = postings.get(gram);
+                if (posting == null) {
+                    continue;
+                }
+                // hit[0] = điểm, hit[1] = số trigram khớp
+                posting.forEach((productId, weight) -> {
+                    int[] hit = hits.computeIfAbsent(productId, k -> new int[2]);
+                    hit[0] += weight;
+                    hit[1]++;
+                });
+            }
+            if (!shortTokens.isEmpty()) {
+                matchShortTokens(hits, shortTokens, queryGrams.isEmpty());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int minMatched = (int) Math.ceil(queryGrams.size() * MIN_COVERAGE);
+        List<Map.Entry<Long, int[]>> ranked = new ArrayList<>();
+        for (Map.Entry<Long, int[]> entry : hits.entrySet()) {
+            if (entry.getValue()[1] >= minMatched) {
+                ranked.add(entry);
+            }
+        }
+        ranked.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                ? Integer.compare(b.getValue()[0], a.getValue()[0])
+                : Long.compare(a.getKey(), b.getKey()));
+
+        List<Long> pageIds = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size() && pageIds.size() < limit; i++) {
+            pageIds.add(ranked.get(i).getKey());
+        }
+        return new CatalogIndex.IdPage(pageIds, ranked.size());
+    }
+
+    private void putLocked(Product product) {
+        Map<String, Integer> weights = new HashMap<>();
+        addGrams(weights, product.getName(), NAME_WEIGHT);
+        addGrams(weights, product.getFactory(), FACTORY_WEIGHT);
+        addGrams(weights, product.getShortDesc(), SHORT_DESC_WEIGHT);
+
+        weights.forEach((gram, weight) ->
+                postings.computeIfAbsent(gram, k -> new HashMap<>()).put(product.getId(), weight));
+        gramsByProduct.put(product.getId(), weights.keySet());
+        foldedTextByProduct.put(product.getId(), new String[]{
+                TextFolding.fold(product.getName()),
+                TextFolding.fold(product.getFactory()),
+                TextFolding.fold(product.getShortDesc())});
+    }
+
+    /**
+     * Lọc theo các từ khóa ngắn: sản phẩm phải chứa mọi từ đó (chuỗi con) ở một trong các trường, được cộng
+     * trọng số của trường tốt nhất. Không có trigram nào thì xét toàn bộ sản phẩm.
+     */
+    private void matchShortTokens(Map<Long, int[]> hits, List<String> shortTokens, boolean scanAll) {
+        if (scanAll) {
+            foldedTextByProduct.keySet().forEach(productId -> hits.put(productId, new int[2]));
+        }
+        hits.entrySet().removeIf(entry -> {
+            String[] fields = foldedTextByProduct.get(entry.getKey());
+            for (String token : shortTokens) {
+                int weight = fieldWeight(fields, token);
+                if (weight == 0) {
+                    return true;
+                }
+                entry.getValue()[0] += weight;
+            }
+            return false;
+        });
+    }
+
+    private static int fieldWeight(String[] fields, String token) {
+        if (fields == null) {
+            return 0;
+        }
+        if (fields[0].contains(token)) {
+            return NAME_WEIGHT;
+        }
+        if (fields[1].contains(token)) {
+            return FACTORY_WEIGHT;
+        }
+        return fields[2].contains(token) ? SHORT_DESC_WEIGHT : 0;
+    }
+
+    private void removeLocked(long productId) {
+        foldedTextByProduct.remove(productId);
+        Set<String> grams = gramsByProduct.remove(productId);
+        if (grams == null) {
+            return;
+        }
+        for (String gram : grams) {
+            Map<Long, Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void addGrams(Map<String, Integer> weights, String text, int weight) {
+        for (String gram : TextFolding.grams(text)) {
+            weights.merge(gram, weight, Math::max);
+        }
+    }
+}
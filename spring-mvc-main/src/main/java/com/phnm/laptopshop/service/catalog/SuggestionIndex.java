@@ -0,0 +1,182 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.Product;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gợi ý từ khóa (typeahead) cho ô tìm kiếm, phục vụ hoàn toàn từ bộ nhớ.
+ * Dữ liệu là một mảng khóa đã bỏ dấu và sắp xếp; tra cứu tiền tố bằng tìm kiếm nhị phân.
+ * Mỗi tên sản phẩm được đưa vào với mọi hậu tố bắt đầu từ đầu một từ, nên gõ "vivo" cũng gợi ý "Asus Vivobook 15".
+ * Khi dữ liệu thay đổi, một snapshot mới được dựng và thay thế nguyên khối, người đọc không cần khóa.
+ * Số bán chỉ đổi thứ hạng nên được gom lại và dựng snapshot theo lịch, không dựng lại sau mỗi đơn.
+ */
+@Component
+public class SuggestionIndex {
+
+    // Giới hạn số khóa được duyệt cho một tiền tố quá ngắn (vd: "a") để giữ độ trễ ổn định
+    private static final int MAX_SCANNED = 2000;
+
+    private static final class Snapshot {
+        final String[] keys;
+        final String[] labels;
+        final long[] weights;
+
+        Snapshot(String[] keys, String[] labels, long[] weights) {
+            this.keys = keys;
+            this.labels = labels;
+            this.weights = weights;
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final String factory;
+        long sold;
+
+        Entry(Product product) {
+            this.name = product.getName();
+            this.factory = product.getFactory();
+            this.sold = product.getSold();
+        }
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new String[0], new long[0]);
+    private boolean weightsChanged = false;
+
+    public synchronized void rebuild(Iterable<Product> products) {
+        entries.clear();
+        for (Product product : products) {
+            entries.put(product.getId(), new Entry(product));
+        }
+        snapshot = buildSnapshot();
+        weightsChanged = false;
+    }
+
+    public synchronized void put(Product product) {
+        entries.put(product.getId(), new Entry(product));
+        snapshot = buildSnapshot();
+    }
+
+    public synchronized void remove(long productId) {
+        if (entries.remove(productId) != null) {
+            snapshot = buildSnapshot();
+        }
+    }
+
+    public synchronized void addSold(long productId, long quantity) {
+        Entry entry = entries.get(productId);
+        if (entry != null) {
+            entry.sold += quantity;
+            weightsChanged = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.suggest-refresh-ms:60000}")
+    public synchronized void refreshWeights() {
+        if (weightsChanged) {
+            snapshot = buildSnapshot();
+            weightsChanged = false;
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = TextFolding.fold(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        int from = lowerBound(current.keys, key);
+
+        // Giữ các nhãn có trọng số cao nhất trong dải khóa khớp tiền tố
+        Map<String, Long> best = new HashMap<>();
+        for (int i = from, scanned = 0;
+             i < current.keys.length && scanned < MAX_SCANNED && current.keys[i].startsWith(key);
+             i++, scanned++) {
+            best.merge(current.labels[i], current.weights[i], Math::max);
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(best.entrySet());
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        List<String> suggestions = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            suggestions.add(ranked.get(i).getKey());
+        }
+        return suggestions;
+    }
+
+    private Snapshot buildSnapshot() {
+        List<String[]> rows = new ArrayList<>();
+        List<Long> rowWeights = new ArrayList<>();
+        Map<String, Long> factoryWeights = new HashMap<>();
+
+        for (Entry entry : entries.values()) {
+            if (entry.name != null) {
+                for (String key : wordSuffixes(entry.name)) {
+                    rows.add(new String[]{key, entry.name});
+                    rowWeights.add(entry.sold);
+                }
+            }
+            if (entry.factory != null && !entry.factory.isBlank()) {
+                factoryWeights.merge(entry.factory, 1L, Long::sum);
+            }
+        }
+        // Hãng sản xuất được ưu tiên hơn tên sản phẩm đơn lẻ: trọng số = tổng số sản phẩm của hãng
+        factoryWeights.forEach((factory, count) -> {
+            rows.add(new String[]{TextFolding.fold(factory), factory});
+            rowWeights.add(Long.MAX_VALUE / 2 + count);
+        });
+
+        Integer[] order = new Integer[rows.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> rows.get(i)[0]));
+
+        String[] keys = new String[order.length];
+        String[] labels = new String[order.length];
+        long[] weights = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = rows.get(order[i])[0];
+            labels[i] = rows.get(order[i])[1];
+            weights[i] = rowWeights.get(order[i]);
+        }
+        return new Snapshot(keys, labels, weights);
+    }
+
+    private Set<String> wordSuffixes(String name) {
+        List<String> tokens = TextFolding.tokens(name);
+        Set<String> suffixes = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            suffixes.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return suffixes;
+    }
+
+    private int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,59 @@
+package com.phnm.laptopshop.service.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi cho tìm kiếm: bỏ dấu tiếng Việt, chữ thường, tách từ và sinh n-gram.
+ * "Máy tính Đồ họa" và "may tinh do hoa" cho cùng một tập từ.
+ */
+public final class TextFolding {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    public static final int GRAM_SIZE = 3;
+
+    private TextFolding() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase().replace('đ', 'd');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : fold(text).split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Từ ngắn hơn GRAM_SIZE được giữ nguyên làm một gram.
+     */
+    public static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : tokens(text)) {
+            if (token.length() <= GRAM_SIZE) {
+                grams.add(token);
+            } else {
+                for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+                    grams.add(token.substring(i, i + GRAM_SIZE));
+                }
+            }
+        }
+        return grams;
+    }
+}
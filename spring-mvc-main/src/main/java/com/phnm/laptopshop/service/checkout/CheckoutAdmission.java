@@ -0,0 +1,159 @@
+package com.phnm.laptopshop.service.checkout;
+
+import com.phnm.laptopshop.repository.ProductRepository;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Phòng chờ trước bước đặt hàng khi bật app.flash-sale.enabled.
+ * Mỗi sản phẩm flash sale có số vé bằng tồn kho lúc khởi động; giỏ có sản phẩm hết vé bị từ chối ngay, không chờ.
+ * Các đơn còn lại xếp hàng (tối đa max-waiting, mỗi đơn chờ tối đa wait-timeout-ms) để chỉ max-concurrent đơn
+ * cùng ghi DB, phần còn lại của pool kết nối vẫn phục vụ các trang xem sản phẩm.
+ */
+@Component
+public class CheckoutAdmission {
+
+    /**
+     * Lượt được vào đặt hàng. Đơn không confirm() thì vé được trả lại khi close().
+     */
+    public final class Ticket implements AutoCloseable {
+        private final Map<Long, Long> takenTokens;
+        private final boolean holdsPermit;
+        private boolean confirmed;
+
+        private Ticket(Map<Long, Long> takenTokens, boolean holdsPermit) {
+            this.takenTokens = takenTokens;
+            this.holdsPermit = holdsPermit;
+        }
+
+        public void confirm() {
+            confirmed = true;
+        }
+
+        @Override
+        public void close() {
+            if (!confirmed) {
+                takenTokens.forEach(CheckoutAdmission.this::returnTokens);
+            }
+            if (holdsPermit) {
+                permits.release();
+            }
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final List<Long> saleProductIds;
+    private final int maxWaiting;
+    private final long waitTimeoutMillis;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Map<Long, AtomicLong> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, String> productNames = new ConcurrentHashMap<>();
+
+    public CheckoutAdmission(
+            ProductRepository productRepository,
+            @Value("${app.flash-sale.enabled:false}") boolean enabled,
+            @Value("${app.flash-sale.product-ids:}") List<Long> saleProductIds,
+            @Value("${app.flash-sale.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.flash-sale.max-waiting:100}") int maxWaiting,
+            @Value("${app.flash-sale.wait-timeout-ms:3000}") long waitTimeoutMillis) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.saleProductIds = saleProductIds;
+        this.maxWaiting = maxWaiting;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        // Công bằng: đơn chờ trước được vào trước
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    // Cấp vé theo tồn kho hiện tại của các sản phẩm flash sale
+    @EventListener(ApplicationReadyEvent.class)
+    public void allocateTokens() {
+        if (!enabled || saleProductIds.isEmpty()) {
+            return;
+        }
+        for (Object[] row : productRepository.findStockByIdIn(saleProductIds)) {
+            tokens.put((Long) row[0], new AtomicLong((Long) row[2]));
+            productNames.put((Long) row[0], (String) row[1]);
+        }
+    }
+
+    /**
+     * Giữ vé cho các dòng giỏ (id sản phẩm → số lượng) rồi chờ tới lượt đặt hàng.
+     * Giỏ chỉ được đọc khi đang flash sale.
+     *
+     * @throws OutOfStockException sản phẩm flash sale trong giỏ đã hết vé
+     * @throws CheckoutBusyException hàng chờ đầy hoặc chờ quá wait-timeout-ms
+     */
+    public Ticket admit(Supplier<Map<Long, Long>> cartQuantities) {
+        if (!enabled) {
+            return new Ticket(Map.of(), false);
+        }
+
+        Map<Long, Long> taken = takeTokens(cartQuantities.get());
+        boolean admitted = false;
+        try {
+            if (waiting.incrementAndGet() > maxWaiting) {
+                throw new CheckoutBusyException();
+            }
+            try {
+                admitted = permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!admitted) {
+                throw new CheckoutBusyException();
+            }
+        } finally {
+            waiting.decrementAndGet();
+            if (!admitted) {
+                taken.forEach(this::returnTokens);
+            }
+        }
+        return new Ticket(taken, true);
+    }
+
+    // Trả vé khi đơn VNPay thất bại hoặc giữ hàng quá hạn
+    public void returnTokens(long productId, long quantity) {
+        AtomicLong available = tokens.get(productId);
+        if (available != null) {
+            available.addAndGet(quantity);
+        }
+    }
+
+    // Lấy đủ vé cho mọi sản phẩm flash sale trong giỏ, thiếu ở một sản phẩm thì trả lại các vé đã lấy
+    private Map<Long, Long> takeTokens(Map<Long, Long> quantities) {
+        Map<Long, Long> taken = new HashMap<>();
+        for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+            AtomicLong available = tokens.get(line.getKey());
+            if (available == null) {
+                continue;
+            }
+            long quantity = line.getValue();
+            long current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    taken.forEach(this::returnTokens);
+                    throw new OutOfStockException(productNames.get(line.getKey()));
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            taken.put(line.getKey(), quantity);
+        }
+        return taken;
+    }
+}
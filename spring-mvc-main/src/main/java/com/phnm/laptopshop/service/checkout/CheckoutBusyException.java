@@ -0,0 +1,11 @@
+package com.phnm.laptopshop.service.checkout;
+
+/**
+ * Hàng chờ thanh toán đã đầy hoặc chờ quá lâu trong chế độ flash sale; khách thử lại sau.
+ */
+public class CheckoutBusyException extends RuntimeException {
+
+    public CheckoutBusyException() {
+        super("Checkout is busy");
+    }
+}
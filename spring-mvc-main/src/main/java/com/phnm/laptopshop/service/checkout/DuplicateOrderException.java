@@ -0,0 +1,22 @@
+package com.phnm.laptopshop.service.checkout;
+
+import com.phnm.laptopshop.domain.Order;
+
+/**
+ * Lệnh đặt hàng thứ hai của cùng người dùng trong một lô group commit (ví dụ bấm đặt hàng hai lần):
+ * cả hai đọc cùng một giỏ nên chỉ lệnh đầu tạo đơn; lệnh sau nhận lại đơn đó, không giữ vé flash sale riêng.
+ */
+public class DuplicateOrderException extends RuntimeException {
+
+    private final transient Order order;
+
+    public DuplicateOrderException(Order order) {
+        super("Order was already placed from the same cart");
+        this.order = order;
+    }
+
+    // null nếu lệnh đầu gặp giỏ trống
+    public Order getOrder() {
+        return order;
+    }
+}
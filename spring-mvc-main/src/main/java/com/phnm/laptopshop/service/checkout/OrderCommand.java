@@ -0,0 +1,35 @@
+package com.phnm.laptopshop.service.checkout;
+
+import com.phnm.laptopshop.domain.Order;
+import com.phnm.laptopshop.domain.User;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Một lệnh đặt hàng từ giỏ của user. result hoàn tất sau khi đơn đã commit (null nếu giỏ trống),
+ * hoặc lỗi nếu đơn bị từ chối (ví dụ OutOfStockException), hoặc DuplicateOrderException nếu lệnh trước của
+ * cùng người dùng trong lô đã tạo đơn.
+ */
+public record OrderCommand(
+        User user,
+        String receiverName,
+        String receiverAddress,
+        String receiverPhone,
+        String status,
+        String paymentMethod,
+        boolean confirmNow,
+        long enqueuedAt,
+        CompletableFuture<Order> result) {
+
+    public static OrderCommand of(
+            User user,
+            String receiverName,
+            String receiverAddress,
+            String receiverPhone,
+            String status,
+            String paymentMethod,
+            boolean confirmNow) {
+        return new OrderCommand(user, receiverName, receiverAddress, receiverPhone, status, paymentMethod,
+                confirmNow, System.nanoTime(), new CompletableFuture<>());
+    }
+}
@@ -0,0 +1,159 @@
+package com.phnm.laptopshop.service.checkout;
+
+import com.phnm.laptopshop.domain.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Group commit cho đặt hàng: request xếp lệnh vào hàng đợi rồi chờ, một virtual thread gom tối đa maxBatchSize lệnh
+ * (đợi thêm tối đa lingerMillis cho lô đầy hơn) và giao cả lô cho committer, ghi trong một transaction.
+ * Nhiều đơn chung một lần commit nên chung một lần fsync của MySQL.
+ */
+public class OrderPipeline implements AutoCloseable {
+
+    public record Metrics(
+            boolean enabled,
+            long batches,
+            long orders,
+            double averageBatchSize,
+            int maxBatchSize,
+            double averageLatencyMillis,
+            double maxLatencyMillis,
+            int queued) {
+
+        public static final Metrics DISABLED = new Metrics(false, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    private static final long POLL_MILLIS = 100;
+
+    private final Consumer<List<OrderCommand>> committer;
+    private final BlockingQueue<OrderCommand> queue;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * committer phải hoàn tất result của từng lệnh sau khi lô commit; lệnh nào bị bỏ sót sẽ nhận lỗi.
+     */
+    public OrderPipeline(Consumer<List<OrderCommand>> committer, int queueCapacity, int maxBatchSize,
+                         long lingerMillis) {
+        this.committer = committer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.worker = Thread.ofVirtual().name("order-committer").unstarted(this::run);
+    }
+
+    // Bắt đầu luồng ghi; gọi sau khi committer đã sẵn sàng nhận lô
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Xếp lệnh vào hàng và chờ lô chứa nó commit. Lỗi của riêng lệnh (ví dụ hết hàng) được ném lại nguyên dạng.
+     *
+     * @throws CheckoutBusyException hàng đợi đầy
+     */
+    public Order submit(OrderCommand command) {
+        if (!running || !queue.offer(command)) {
+            throw new CheckoutBusyException();
+        }
+        try {
+            return command.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public Metrics getMetrics() {
+        long batchCount = batches.sum();
+        long orderCount = orders.sum();
+        return new Metrics(
+                true,
+                batchCount,
+                orderCount,
+                batchCount == 0 ? 0 : (double) orderCount / batchCount,
+                largestBatch.get(),
+                orderCount == 0 ? 0 : latencyNanos.sum() / 1e6 / orderCount,
+                maxLatencyNanos.get() / 1e6,
+                queue.size());
+    }
+
+    // Dừng nhận lệnh mới, chờ luồng ghi commit nốt các lệnh đã xếp hàng
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join();
+    }
+
+    private void run() {
+        List<OrderCommand> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                OrderCommand first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    OrderCommand next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Chỉ còn lệnh khi luồng bị ngắt giữa chừng: không để request chờ mãi
+        queue.drainTo(batch);
+        for (OrderCommand command : batch) {
+            command.result().completeExceptionally(new CheckoutBusyException());
+        }
+    }
+
+    private void commit(List<OrderCommand> batch) {
+        try {
+            committer.accept(batch);
+        } catch (RuntimeException e) {
+            for (OrderCommand command : batch) {
+                command.result().completeExceptionally(e);
+            }
+        }
+
+        long now = System.nanoTime();
+        for (OrderCommand command : batch) {
+            command.result().completeExceptionally(new IllegalStateException("Order command was not completed"));
+            long latency = now - command.enqueuedAt();
+            latencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        batches.increment();
+        orders.add(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+    }
+}
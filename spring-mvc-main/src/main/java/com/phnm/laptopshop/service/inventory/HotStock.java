@@ -0,0 +1,75 @@
+package com.phnm.laptopshop.service.inventory;
+
+import com.phnm.laptopshop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tồn kho trong bộ nhớ của các sản phẩm bán chạy nhất. Mỗi sản phẩm dùng một LongAdder (bộ đếm chia ô theo luồng),
+ * nên hàng nghìn lượt đặt cùng lúc một mẫu máy không tranh nhau ghi một biến.
+ * Đây chỉ là bộ lọc: khi bộ đếm báo hết hàng thì từ chối ngay thay vì xếp hàng chờ khóa dòng products;
+ * câu UPDATE có điều kiện trên DB vẫn quyết định cuối cùng, nên bộ đếm lệch một chút cũng không bán quá kho.
+ */
+@Component
+public class HotStock {
+
+    private final ProductRepository productRepository;
+    private final int hotItems;
+    private volatile Map<Long, LongAdder> stocks = Map.of();
+
+    public HotStock(ProductRepository productRepository, @Value("${app.inventory.hot-items:20}") int hotItems) {
+        this.productRepository = productRepository;
+        this.hotItems = hotItems;
+    }
+
+    // Chọn lại danh sách bán chạy và nạp lại số tồn từ DB
+    @Scheduled(fixedDelayString = "${app.inventory.hot-refresh-ms:60000}")
+    public void refresh() {
+        List<Object[]> rows = productRepository.findStockOfBestSellers(PageRequest.ofSize(hotItems));
+        Map<Long, LongAdder> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            LongAdder stock = new LongAdder();
+            stock.add((Long) row[1]);
+            loaded.put((Long) row[0], stock);
+        }
+        stocks = loaded;
+    }
+
+    /**
+     * false nếu chắc chắn không đủ hàng; sản phẩm không được theo dõi luôn trả về true (để DB quyết định).
+     */
+    public boolean mightHave(long productId, long quantity) {
+        LongAdder stock = stocks.get(productId);
+        return stock == null || stock.sum() >= quantity;
+    }
+
+    public void take(long productId, long quantity) {
+        LongAdder stock = stocks.get(productId);
+        if (stock != null) {
+            stock.add(-quantity);
+        }
+    }
+
+    public void give(long productId, long quantity) {
+        LongAdder stock = stocks.get(productId);
+        if (stock != null) {
+            stock.add(quantity);
+        }
+    }
+
+    // Đặt lại theo số trên DB, dùng khi admin sửa kho hoặc khi DB từ chối dù bộ đếm còn hàng
+    public void reset(long productId, long quantity) {
+        LongAdder stock = stocks.get(productId);
+        if (stock != null) {
+            stock.reset();
+            stock.add(quantity);
+        }
+    }
+}
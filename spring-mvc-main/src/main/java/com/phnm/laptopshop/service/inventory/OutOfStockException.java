@@ -0,0 +1,18 @@
+package com.phnm.laptopshop.service.inventory;
+
+/**
+ * Không đủ hàng cho một dòng đơn; transaction đặt hàng rollback, kho không bị trừ.
+ */
+public class OutOfStockException extends RuntimeException {
+
+    private final String productName;
+
+    public OutOfStockException(String productName) {
+        super("Out of stock: " + productName);
+        this.productName = productName;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+}
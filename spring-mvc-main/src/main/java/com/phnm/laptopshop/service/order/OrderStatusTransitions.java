@@ -0,0 +1,57 @@
+package com.phnm.laptopshop.service.order;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng chuyển trạng thái đơn hàng. Thao tác hàng loạt chỉ gồm các bước không đụng tới tồn kho
+ * (giao hàng, hoàn thành); màn hình cập nhật từng đơn dùng bảng đầy đủ hơn, có thêm bước hủy đơn
+ * vì hủy đơn phải trả hàng về kho theo trạng thái cũ của đơn.
+ */
+public final class OrderStatusTransitions {
+
+    public static final String CANCELLED = "Hủy bỏ";
+
+    // Bảng chỉ đọc: all() được đưa ra view và JSON, không ai được sửa bảng kiểm tra của cả tiến trình
+    private static final Map<String, List<String>> ALLOWED;
+    private static final Map<String, List<String>> ALLOWED_SINGLE;
+
+    static {
+        Map<String, List<String>> allowed = new LinkedHashMap<>();
+        allowed.put("Chờ xử lý", List.of("Đang vận chuyển"));
+        allowed.put("Đã thanh toán", List.of("Đang vận chuyển"));
+        allowed.put("Đang vận chuyển", List.of("Hoàn thành"));
+        ALLOWED = Collections.unmodifiableMap(allowed);
+
+        Map<String, List<String>> allowedSingle = new LinkedHashMap<>();
+        allowedSingle.put("Chờ xử lý", List.of("Đang vận chuyển", CANCELLED));
+        allowedSingle.put("Chờ thanh toán", List.of(CANCELLED));
+        allowedSingle.put("Đã thanh toán", List.of("Đang vận chuyển", CANCELLED));
+        allowedSingle.put("Thiếu hàng", List.of(CANCELLED));
+        allowedSingle.put("Đang vận chuyển", List.of("Hoàn thành"));
+        ALLOWED_SINGLE = Collections.unmodifiableMap(allowedSingle);
+    }
+
+    private OrderStatusTransitions() {
+    }
+
+    public static boolean isAllowed(String from, String to) {
+        return from != null && to != null && ALLOWED.getOrDefault(from, List.of()).contains(to);
+    }
+
+    // Trạng thái nguồn → các trạng thái đích, theo thứ tự hiển thị trên màn hình admin
+    public static Map<String, List<String>> all() {
+        return ALLOWED;
+    }
+
+    public static boolean isAllowedSingle(String from, String to) {
+        return from != null && to != null && targetsOf(from).contains(to);
+    }
+
+    // Các trạng thái đích của một đơn trên màn hình cập nhật; rỗng với đơn đã hoàn thành hoặc đã hủy
+    public static List<String> targetsOf(String from) {
+        return from == null ? List.of() : ALLOWED_SINGLE.getOrDefault(from, List.of());
+    }
+}
@@ -0,0 +1,49 @@
+package com.phnm.laptopshop.service.pagination;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache tổng số dòng cho các trang danh sách dùng Slice. Câu COUNT chỉ chạy khi khóa chưa có
+ * hoặc đã quá hạn, thay vì chạy kèm mỗi lần lấy trang như Page.
+ * Khóa nên chứa phiên bản dữ liệu (nếu có) để kết quả cũ tự bị đẩy ra theo LRU.
+ */
+@Component
+public class CountCache {
+
+    static final int MAX_ENTRIES = 256;
+
+    private record Entry(long count, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public long get(String key, long ttlMillis, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                return entry.count();
+            }
+        }
+
+        // Đếm ngoài khóa: hai request cùng lúc có thể cùng đếm, chấp nhận được với một câu COUNT
+        long count = counter.getAsLong();
+        synchronized (this) {
+            entries.put(key, new Entry(count, now + ttlMillis));
+        }
+        return count;
+    }
+
+    public synchronized void evict(String key) {
+        entries.remove(key);
+    }
+}
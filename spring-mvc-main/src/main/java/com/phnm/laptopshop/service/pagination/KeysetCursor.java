@@ -0,0 +1,53 @@
+package com.phnm.laptopshop.service.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Vị trí (giá trị cột sắp xếp, id) của bản ghi cuối cùng trên trang trước.
+ * Được mã hóa thành chuỗi base64 "mờ" để đặt vào query string (?cursor=...).
+ */
+public class KeysetCursor {
+
+    private final double sortValue;
+    private final long id;
+
+    public KeysetCursor(double sortValue, long id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static KeysetCursor ofId(long id) {
+        return new KeysetCursor(0, id);
+    }
+
+    public double getSortValue() {
+        return sortValue;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = sortValue + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null nếu token rỗng hoặc không hợp lệ, khi đó controller trả về trang đầu tiên
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            return new KeysetCursor(Double.parseDouble(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.phnm.laptopshop.service.recommendation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ma trận "mua cùng nhau" thưa: với mỗi sản phẩm chỉ giữ tối đa MAX_NEIGHBOURS sản phẩm hay được mua kèm,
+ * lưu trong mảng long/int thay vì Map các cặp, nên bộ nhớ tăng tuyến tính theo số sản phẩm.
+ * Khi danh sách đã đầy, sản phẩm mới thay chỗ sản phẩm có đếm thấp nhất với đếm = min + 1
+ * (thuật toán Space-Saving), nên các cặp mua cùng thường xuyên luôn giữ được chỗ.
+ */
+@Component
+public class CoPurchaseIndex {
+
+    static final int MAX_NEIGHBOURS = 20;
+
+    private static final class Neighbours {
+        final long[] ids = new long[MAX_NEIGHBOURS];
+        final int[] counts = new int[MAX_NEIGHBOURS];
+        int size = 0;
+
+        void increment(long neighbourId) {
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == neighbourId) {
+                    counts[i]++;
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (size < MAX_NEIGHBOURS) {
+                ids[size] = neighbourId;
+                counts[size] = 1;
+                size++;
+            } else {
+                ids[min] = neighbourId;
+                counts[min]++;
+            }
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Neighbours> neighboursByProduct = new HashMap<>();
+
+    public void rebuild(Iterable<long[]> baskets) {
+        lock.writeLock().lock();
+        try {
+            neighboursByProduct.clear();
+            for (long[] basket : baskets) {
+                recordLocked(basket);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ghi nhận một đơn hàng: mọi cặp sản phẩm khác nhau trong đơn được đếm theo cả hai chiều.
+     */
+    public void record(long[] basket) {
+        lock.writeLock().lock();
+        try {
+            recordLocked(basket);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tối đa limit sản phẩm hay được mua cùng productId, đếm giảm dần.
+     */
+    public List<Long> topNeighbours(long productId, int limit) {
+        long[] ids;
+        int[] counts;
+        int size;
+        lock.readLock().lock();
+        try {
+            Neighbours neighbours = neighboursByProduct.get(productId);
+            if (neighbours == null) {
+                return new ArrayList<>();
+            }
+            size = neighbours.size;
+            ids = Arrays.copyOf(neighbours.ids, size);
+            counts = Arrays.copyOf(neighbours.counts, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // size <= MAX_NEIGHBOURS nên chọn lần lượt phần tử lớn nhất là đủ nhanh
+        List<Long> top = new ArrayList<>(Math.min(limit, size));
+        boolean[] taken = new boolean[size];
+        while (top.size() < limit && top.size() < size) {
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                if (!taken[i] && (best < 0 || counts[i] > counts[best])) {
+                    best = i;
+                }
+            }
+            taken[best] = true;
+            top.add(ids[best]);
+        }
+        return top;
+    }
+
+    private void recordLocked(long[] basket) {
+        long[] distinct = Arrays.stream(basket).distinct().toArray();
+        for (long productId : distinct) {
+            for (long otherId : distinct) {
+                if (productId != otherId) {
+                    neighboursByProduct.computeIfAbsent(productId, k -> new Neighbours()).increment(otherId);
+                }
+            }
+        }
+    }
+}
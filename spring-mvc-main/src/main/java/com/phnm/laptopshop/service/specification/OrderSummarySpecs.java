@@ -0,0 +1,40 @@
+package com.phnm.laptopshop.service.specification;
+
+import com.phnm.laptopshop.domain.OrderSummary;
+import com.phnm.laptopshop.domain.OrderSummary_;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+public class OrderSummarySpecs {
+    public static Specification<OrderSummary> matchStatus(String status) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.equal(root.get(OrderSummary_.STATUS), status);
+    }
+
+    public static Specification<OrderSummary> matchPaymentMethod(String paymentMethod) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.equal(root.get(OrderSummary_.PAYMENT_METHOD), paymentMethod);
+    }
+
+    public static Specification<OrderSummary> matchReceiverPhone(String phone) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.equal(root.get(OrderSummary_.RECEIVER_PHONE), phone);
+    }
+
+    public static Specification<OrderSummary> createdFrom(LocalDateTime from) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.greaterThanOrEqualTo(root.get(OrderSummary_.CREATED_AT), from);
+    }
+
+    public static Specification<OrderSummary> createdBefore(LocalDateTime before) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.lessThan(root.get(OrderSummary_.CREATED_AT), before);
+    }
+
+    // Điều kiện keyset: các đơn cũ hơn đơn cuối của trang trước
+    public static Specification<OrderSummary> orderIdBelow(long orderId) {
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.lessThan(root.get(OrderSummary_.ORDER_ID), orderId);
+    }
+}
@@ -32,10 +32,83 @@
                                         <h3>Danh sách đơn hàng</h3>
                                     </div>
                                     <hr />
+                                    <form method="get" action="/admin/order" class="row g-2 align-items-end mb-3">
+                                        <div class="col-md-2">
+                                            <label class="form-label" for="filterStatus">Trạng thái</label>
+                                            <select class="form-select" id="filterStatus" name="status">
+                                                <option value="">Tất cả</option>
+                                                <c:forEach var="status" items="${['Chờ xử lý', 'Chờ thanh toán', 'Đã thanh toán', 'Thiếu hàng', 'Đang vận chuyển', 'Hoàn thành', 'Hủy bỏ']}">
+                                                    <option value="${status}" ${criteria.status.orElse('') eq status ? 'selected' : ''}>${status}</option>
+                                                </c:forEach>
+                                            </select>
+                                        </div>
+                                        <div class="col-md-2">
+                                            <label class="form-label" for="filterPayment">Thanh toán</label>
+                                            <select class="form-select" id="filterPayment" name="paymentMethod">
+                                                <option value="">Tất cả</option>
+                                                <c:forEach var="method" items="${['COD', 'VNPAY']}">
+                                                    <option value="${method}" ${criteria.paymentMethod.orElse('') eq method ? 'selected' : ''}>${method}</option>
+                                                </c:forEach>
+                                            </select>
+                                        </div>
+                                        <div class="col-md-2">
+                                            <label class="form-label" for="filterPhone">Số điện thoại</label>
+                                            <input class="form-control" id="filterPhone" name="phone"
+                                                   value="<c:out value="${criteria.phone.orElse('')}"/>">
+                                        </div>
+                                        <div class="col-md-2">
+                                            <label class="form-label" for="filterFrom">Từ ngày</label>
+                                            <input type="date" class="form-control" id="filterFrom" name="from"
+                                                   value="<c:out value="${criteria.from.orElse('')}"/>">
+                                        </div>
+                                        <div class="col-md-2">
+                                            <label class="form-label" for="filterTo">Đến ngày</label>
+                                            <input type="date" class="form-control" id="filterTo" name="to"
+                                                   value="<c:out value="${criteria.to.orElse('')}"/>">
+                                        </div>
+                                        <div class="col-md-2">
+                                            <button type="submit" class="btn btn-primary">Lọc</button>
+                                            <a href="/admin/order" class="btn btn-outline-secondary">Bỏ lọc</a>
+                                        </div>
+                                    </form>
+                                    <c:if test="${not empty bulkMessage}">
+                                        <div class="alert alert-success" role="alert"><c:out value="${bulkMessage}"/></div>
+                                    </c:if>
+                                    <c:if test="${not empty bulkError}">
+                                        <div class="alert alert-danger" role="alert"><c:out value="${bulkError}"/></div>
+                                    </c:if>
+                                    <form id="bulkStatusForm" method="post" action="/admin/order/bulk-status"
+                                          class="row g-2 align-items-end mb-3">
+                                        <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
+                                        <div class="col-md-3">
+                                            <label class="form-label" for="bulkFrom">Chuyển các đơn đã chọn từ</label>
+                                            <select class="form-select" id="bulkFrom" name="fromStatus">
+                                                <c:forEach var="transition" items="${statusTransitions}">
+                                                    <option value="${transition.key}" ${criteria.status.orElse('') eq transition.key ? 'selected' : ''}>${transition.key}</option>
+                                                </c:forEach>
+                                            </select>
+                                        </div>
+                                        <div class="col-md-3">
+                                            <label class="form-label" for="bulkTo">sang</label>
+                                            <select class="form-select" id="bulkTo" name="toStatus">
+                                                <c:forEach var="status" items="${['Đang vận chuyển', 'Hoàn thành']}">
+                                                    <option value="${status}">${status}</option>
+                                                </c:forEach>
+                                            </select>
+                                        </div>
+                                        <div class="col-md-2">
+                                            <button type="submit" class="btn btn-warning">Chuyển trạng thái</button>
+                                        </div>
+                                    </form>
                                     <table class="table table-bordered table-hover">
                                         <thead>
                                         <tr>
+                                            <th scope="col">
+                                                <input type="checkbox" class="form-check-input"
+                                                       onclick="document.querySelectorAll('input[name=ids]').forEach(box => box.checked = this.checked)">
+                                            </th>
                                             <th scope="col">ID</th>
+                                            <th scope="col">Sản phẩm</th>
                                             <th scope="col">Tên người nhận</th>
                                             <th scope="col">Địa chỉ</th>
                                             <th scope="col">Số điện thoại</th>
@@ -47,45 +120,81 @@
                                         <tbody>
                                         <c:forEach var="order" items="${orders}">
                                             <tr>
-                                                <th scope="row">${order.id}</th>
+                                                <td>
+                                                    <input type="checkbox" class="form-check-input" name="ids"
+                                                           value="${order.orderId}" form="bulkStatusForm">
+                                                </td>
+                                                <th scope="row">${order.orderId}</th>
+                                                <td><c:out value="${order.itemNames}"/> (${order.lineCount})</td>
                                                 <td>${order.receiverName}</td>
                                                 <td>${order.receiverAddress}</td>
                                                 <td>${order.receiverPhone}</td>
                                                 <td><fmt:formatNumber type="number" value="${order.totalPrice}"/> đ</td>
                                                 <td>${order.status}</td>
                                                 <td>
-                                                    <a href="/admin/order/${order.id}" class="btn btn-success">View</a>
-                                                    <a href="/admin/order/update/${order.id}" class="btn btn-warning mx-2">Update</a>
-                                                    <a href="/admin/order/delete/${order.id}" class="btn btn-danger">Delete</a>
+                                                    <a href="/admin/order/${order.orderId}" class="btn btn-success">View</a>
+                                                    <a href="/admin/order/update/${order.orderId}" class="btn btn-warning mx-2">Update</a>
+                                                    <a href="/admin/order/delete/${order.orderId}" class="btn btn-danger">Delete</a>
                                                 </td>
                                             </tr>
                                         </c:forEach>
                                         </tbody>
                                     </table>
-                                    <nav aria-label="Page navigation example">
-                                        <ul class="pagination justify-content-center">
-                                            <li class="page-item">
-                                                <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                                   href="/admin/order?page=${currentPage - 1}"
-                                                   aria-label="Previous">
-                                                    <span aria-hidden="true">&laquo;</span>
-                                                </a>
-                                            </li>
-                                            <c:forEach begin="1" end="${totalPages}" varStatus="loop">
-                                                <li class="page-item">
-                                                    <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
-                                                       href="/admin/order?page=${loop.index}">${loop.index}
-                                                    </a>
-                                                </li>
-                                            </c:forEach>
-                                            <li class="page-item">
-                                                <a class="${totalPages eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                                   href="/admin/order?page=${currentPage + 1}" aria-label="Next">
-                                                    <span aria-hidden="true">&raquo;</span>
-                                                </a>
-                                            </li>
-                                        </ul>
-                                    </nav>
+                                    <c:choose>
+                                        <c:when test="${cursorMode}">
+                                            <nav aria-label="Page navigation example">
+                                                <ul class="pagination justify-content-center">
+                                                    <li class="page-item">
+                                                        <a class="page-link" href="/admin/order?${filterQuery}cursor=">Trang đầu</a>
+                                                    </li>
+                                                    <li class="page-item">
+                                                        <a class="${empty nextCursor ? 'disabled page-link' : 'page-link'}"
+                                                           href="/admin/order?${filterQuery}cursor=${nextCursor}" aria-label="Next">
+                                                            <span aria-hidden="true">&raquo;</span>
+                                                        </a>
+                                                    </li>
+                                                </ul>
+                                            </nav>
+                                        </c:when>
+                                        <c:otherwise>
+                                            <nav aria-label="Page navigation example">
+                                                <ul class="pagination justify-content-center">
+                                                    <li class="page-item">
+                                                        <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
+                                                           href="/admin/order?page=${currentPage - 1}"
+                                                           aria-label="Previous">
+                                                            <span aria-hidden="true">&laquo;</span>
+                                                        </a>
+                                                    </li>
+                                                    <c:choose>
+                                                        <c:when test="${not empty totalPages}">
+                                                            <c:forEach begin="1" end="${totalPages}" varStatus="loop">
+                                                                <li class="page-item">
+                                                                    <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
+                                                                       href="/admin/order?page=${loop.index}">${loop.index}
+                                                                    </a>
+                                                                </li>
+                                                            </c:forEach>
+                                                        </c:when>
+                                                        <c:otherwise>
+                                                            <li class="page-item">
+                                                                <a class="active page-link" href="/admin/order?page=${currentPage}">${currentPage}</a>
+                                                            </li>
+                                                        </c:otherwise>
+                                                    </c:choose>
+                                                    <li class="page-item">
+                                                        <a class="${not hasNext ? 'disabled page-link' : 'page-link'}"
+                                                           href="/admin/order?page=${currentPage + 1}" aria-label="Next">
+                                                            <span aria-hidden="true">&raquo;</span>
+                                                        </a>
+                                                    </li>
+                                                </ul>
+                                            </nav>
+                                            <div class="text-center">
+                                                <a href="/admin/order?cursor=">Duyệt nhanh (không đánh số trang)</a>
+                                            </div>
+                                        </c:otherwise>
+                                    </c:choose>
                                 </div>
                             </div>
                         </div>
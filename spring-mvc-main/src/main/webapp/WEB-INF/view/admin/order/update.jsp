@@ -34,6 +34,9 @@
                                 <h3>Update order</h3>
                             </div>
                             <hr />
+                            <c:if test="${not empty updateError}">
+                                <div class="alert alert-danger" role="alert"><c:out value="${updateError}"/></div>
+                            </c:if>
                             <form:form method="post" action="/admin/order/update" modelAttribute="order"
                                        class="row g-3">
                                 <div class="mb-3" style="display: none">
@@ -71,10 +74,10 @@
                                 <div class="col-md-6">
                                     <label class="form-label">Trạng thái:</label>
                                     <form:select class="form-select" path="status">
-                                        <form:option value="Chờ xử lý">Chờ xử lý</form:option>
-                                        <form:option value="Đang vận chuyển">Đang vận chuyển</form:option>
-                                        <form:option value="Hoàn thành">Hoàn thành</form:option>
-                                        <form:option value="Hủy bỏ">Hủy bỏ</form:option>
+                                        <form:option value="${order.status}">${order.status}</form:option>
+                                        <c:forEach var="nextStatus" items="${nextStatuses}">
+                                            <form:option value="${nextStatus}">${nextStatus}</form:option>
+                                        </c:forEach>
                                     </form:select>
                                 </div>
                                 <div class="d-flex justify-content-between">
@@ -60,30 +60,52 @@
                                 </c:forEach>
                                 </tbody>
                             </table>
-                            <nav aria-label="Page navigation example">
-                                <ul class="pagination justify-content-center">
-                                    <li class="page-item">
-                                        <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                           href="/admin/product?page=${currentPage - 1}"
-                                           aria-label="Previous">
-                                            <span aria-hidden="true">&laquo;</span>
-                                        </a>
-                                    </li>
-                                    <c:forEach begin="1" end="${totalPages}" varStatus="loop">
-                                        <li class="page-item">
-                                            <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
-                                               href="/admin/product?page=${loop.index}">${loop.index}
-                                            </a>
-                                        </li>
-                                    </c:forEach>
-                                    <li class="page-item">
-                                        <a class="${totalPages eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                           href="/admin/product?page=${currentPage + 1}" aria-label="Next">
-                                            <span aria-hidden="true">&raquo;</span>
-                                        </a>
-                                    </li>
-                                </ul>
-                            </nav>
+                            <c:choose>
+                                <c:when test="${cursorMode}">
+                                    <nav aria-label="Page navigation example">
+                                        <ul class="pagination justify-content-center">
+                                            <li class="page-item">
+                                                <a class="page-link" href="/admin/product?cursor=">Trang đầu</a>
+                                            </li>
+                                            <li class="page-item">
+                                                <a class="${empty nextCursor ? 'disabled page-link' : 'page-link'}"
+                                                   href="/admin/product?cursor=${nextCursor}" aria-label="Next">
+                                                    <span aria-hidden="true">&raquo;</span>
+                                                </a>
+                                            </li>
+                                        </ul>
+                                    </nav>
+                                </c:when>
+                                <c:otherwise>
+                                    <nav aria-label="Page navigation example">
+                                        <ul class="pagination justify-content-center">
+                                            <li class="page-item">
+                                                <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
+                                                   href="/admin/product?page=${currentPage - 1}"
+                                                   aria-label="Previous">
+                                                    <span aria-hidden="true">&laquo;</span>
+                                                </a>
+                                            </li>
+                                            <c:forEach begin="1" end="${totalPages}" varStatus="loop">
+                                                <li class="page-item">
+                                                    <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
+                                                       href="/admin/product?page=${loop.index}">${loop.index}
+                                                    </a>
+                                                </li>
+                                            </c:forEach>
+                                            <li class="page-item">
+                                                <a class="${totalPages eq currentPage ? 'disabled page-link' : 'page-link'}"
+                                                   href="/admin/product?page=${currentPage + 1}" aria-label="Next">
+                                                    <span aria-hidden="true">&raquo;</span>
+                                                </a>
+                                            </li>
+                                        </ul>
+                                    </nav>
+                                    <div class="text-center">
+                                        <a href="/admin/product?cursor=">Duyệt nhanh (không đánh số trang)</a>
+                                    </div>
+                                </c:otherwise>
+                            </c:choose>
                         </div>
                     </div>
                 </div>
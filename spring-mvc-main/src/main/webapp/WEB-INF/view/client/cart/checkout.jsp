@@ -125,6 +125,16 @@
                 </tbody>
             </table>
         </div>
+        <c:if test="${not empty outOfStockProduct}">
+            <div class="alert alert-danger mt-4">
+                Sản phẩm <c:out value="${outOfStockProduct}"/> không còn đủ hàng, vui lòng giảm số lượng.
+            </div>
+        </c:if>
+        <c:if test="${checkoutBusy}">
+            <div class="alert alert-warning mt-4">
+                Hệ thống đang có nhiều đơn đặt cùng lúc, vui lòng đặt hàng lại sau ít giây.
+            </div>
+        </c:if>
         <c:if test="${not empty cartDetails}">
             <form:form action="/place-order" method="post">
                 <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
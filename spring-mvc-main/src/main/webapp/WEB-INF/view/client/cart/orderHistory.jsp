@@ -74,65 +74,54 @@
             <table class="table">
                 <thead>
                 <tr>
+                    <th scope="col">Mã đơn</th>
                     <th scope="col">Sản phẩm</th>
-                    <th scope="col">Tên</th>
-                    <th scope="col">Giá thành</th>
-                    <th scope="col">Số lượng</th>
-                    <th scope="col">Thành tiền</th>
+                    <th scope="col">Số mặt hàng</th>
+                    <th scope="col">Tổng tiền</th>
+                    <th scope="col">Thanh toán</th>
                     <th scope="col">Trạng thái</th>
+                    <th scope="col"></th>
                 </tr>
                 </thead>
                 <tbody>
                 <c:if test="${empty orders}">
                     <tr>
-                        <td colspan="6" class="text-center">Không có đơn hàng nào!</td>
+                        <td colspan="7" class="text-center">Không có đơn hàng nào!</td>
                     </tr>
                 </c:if>
-                <c:forEach var="order" items="${orders}" varStatus="status">
+                <c:forEach var="order" items="${orders}">
                     <tr>
-                        <td colspan="2">Order ID: ${order.id}</td>
-                        <td colspan="2"></td>
-                        <td colspan="1"><fmt:formatNumber type="number" value="${order.totalPrice}"/> đ</td>
-                        <td colspan="1">${order.status}</td>
+                        <td>#${order.orderId}</td>
+                        <td><c:out value="${order.itemNames}"/></td>
+                        <td>${order.lineCount}</td>
+                        <td><fmt:formatNumber type="number" value="${order.totalPrice}"/> đ</td>
+                        <td>${order.paymentMethod}</td>
+                        <td>${order.status}</td>
+                        <td><a href="/order-history/${order.orderId}">Chi tiết</a></td>
                     </tr>
-                    <c:forEach var="orderDetail" items="${order.orderDetails}">
-                        <tr>
-                            <th scope="row">
-                                <div class="d-flex align-items-center">
-                                    <img src="/images/product_thumbnail/${orderDetail.product.image}"
-                                         class="img-fluid me-5 rounded-circle"
-                                         style="width: 80px; height: 80px; object-fit: contain" alt="">
-                                </div>
-                            </th>
-                            <td>
-                                <p class="mb-0 mt-4">
-                                    <a href="/product/${orderDetail.product.id}"
-                                       target="_blank">${orderDetail.product.name}</a>
-                                </p>
-                            </td>
-                            <td>
-                                <p class="mb-0 mt-4">
-                                    <fmt:formatNumber type="number" value="${orderDetail.product.price}"/> đ
-                                </p>
-                            </td>
-                            <td>
-                                <div class="input-group quantity mt-4" style="width: 100px;">
-                                    <input type="text" class="form-control form-control-sm text-center border-0"
-                                           value="${orderDetail.quantity}" disabled>
-                                </div>
-                            </td>
-                            <td>
-                                <p class="mb-0 mt-4">
-                                    <fmt:formatNumber type="number" value="${orderDetail.price * orderDetail.quantity}"/> đ
-                                </p>
-                            </td>
-                            <td></td>
-                        </tr>
-                    </c:forEach>
                 </c:forEach>
                 </tbody>
             </table>
         </div>
+        <nav aria-label="Page navigation example">
+            <ul class="pagination justify-content-center">
+                <li class="page-item">
+                    <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
+                       href="/order-history?page=${currentPage - 1}" aria-label="Previous">
+                        <span aria-hidden="true">&laquo;</span>
+                    </a>
+                </li>
+                <li class="page-item">
+                    <a class="active page-link" href="/order-history?page=${currentPage}">${currentPage}</a>
+                </li>
+                <li class="page-item">
+                    <a class="${not hasNext ? 'disabled page-link' : 'page-link'}"
+                       href="/order-history?page=${currentPage + 1}" aria-label="Next">
+                        <span aria-hidden="true">&raquo;</span>
+                    </a>
+                </li>
+            </ul>
+        </nav>
         <c:if test="${not empty cartDetails}">
             <form:form action="/place-order" method="post">
                 <input type="hidden" name="${_csrf.parameterName}" value="${_csrf.token}"/>
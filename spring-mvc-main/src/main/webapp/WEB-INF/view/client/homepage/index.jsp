@@ -52,7 +52,9 @@
             <div class="modal-body d-flex align-items-center">
                 <form action="/search" method="get" class="input-group w-75 mx-auto d-flex">
                     <input type="search" name="keyword" class="form-control p-3" placeholder="Nhập từ khóa tìm kiếm..."
+                           list="search-suggestions" autocomplete="off"
                            aria-describedby="search-icon-1">
+                    <datalist id="search-suggestions"></datalist>
                     <button type="submit" id="search-icon-1" class="input-group-text p-3"><i class="fa fa-search"></i></button>
                 </form>
             </div>
@@ -75,6 +75,9 @@
                         </div>
                     </c:if>
                     <c:if test="${empty pageContext.request.userPrincipal}">
+                        <a href="/cart" class="position-relative me-4 my-auto">
+                            <i class="fa fa-shopping-bag fa-2x"></i>
+                        </a>
                         <a href="/login" class="position-relative me-4 my-auto">Đăng nhập</a>
                     </c:if>
                 </div>
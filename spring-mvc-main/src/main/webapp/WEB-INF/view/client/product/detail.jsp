@@ -133,6 +133,31 @@
                             </div>
                         </div>
                     </div>
+                    <c:if test="${not empty alsoBought}">
+                        <div class="col-lg-12">
+                            <h4 class="fw-bold mb-4">Khách hàng cũng mua</h4>
+                            <div class="row g-4">
+                                <c:forEach var="item" items="${alsoBought}">
+                                    <div class="col-md-6 col-lg-3">
+                                        <div class="rounded position-relative fruite-item border border-secondary">
+                                            <img src="/images/product_thumbnail/${item.image}"
+                                                 class="img-fluid w-100 rounded-top"
+                                                 alt="Product thumbnail"
+                                                 style="height: 160px; object-fit: contain;">
+                                            <div class="p-3">
+                                                <h6 class="item-title">
+                                                    <a href="/product/${item.id}">${item.name}</a>
+                                                </h6>
+                                                <p class="text-dark fw-bold mb-0">
+                                                    <fmt:formatNumber type="number" value="${item.price}"/> đ
+                                                </p>
+                                            </div>
+                                        </div>
+                                    </div>
+                                </c:forEach>
+                            </div>
+                        </div>
+                    </c:if>
                 </div>
             </div>
             <div class="col-lg-4 col-xl-3">
@@ -60,7 +60,9 @@
             <div class="modal-body d-flex align-items-center">
                 <form action="/search" method="get" class="input-group w-75 mx-auto d-flex">
                     <input type="search" name="keyword" class="form-control p-3" placeholder="Nhập từ khóa tìm kiếm..."
+                           list="search-suggestions" autocomplete="off"
                            aria-describedby="search-icon-1" value="${keyword}">
+                    <datalist id="search-suggestions"></datalist>
                     <button type="submit" id="search-icon-1" class="input-group-text p-3"><i class="fa fa-search"></i></button>
                 </form>
             </div>
@@ -205,6 +207,18 @@
                                 <label class="form-check-label" for="sort-2">Giá giảm dần</label>
                             </div>
 
+                            <div class="form-check form-check-inline">
+                                <input class="form-check-input" type="radio" id="sort-4"
+                                       value="ban-chay" name="radio-sort">
+                                <label class="form-check-label" for="sort-4">Bán chạy</label>
+                            </div>
+
+                            <div class="form-check form-check-inline">
+                                <input class="form-check-input" type="radio" id="sort-5"
+                                       value="moi-nhat" name="radio-sort">
+                                <label class="form-check-label" for="sort-5">Mới nhất</label>
+                            </div>
+
                             <div class="form-check form-check-inline">
                                 <input class="form-check-input" type="radio" id="sort-3" checked
                                        value="gia-nothing" name="radio-sort">
@@ -262,29 +276,55 @@
                             </div>
                         </c:forEach>
 
-                        <div class="pagination d-flex justify-content-center mt-5">
-                            <li class="page-item">
-                                <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                   href="/product?page=${currentPage - 1}${queryString}" aria-label="Previous">
-                                    <span aria-hidden="true">&laquo;</span>
-                                </a>
-                            </li>
-                            <c:forEach begin="1" end="${totalPages}" varStatus="loop">
-                                <li class="page-item">
-                                    <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
-                                       href="/product?page=${loop.index}${queryString}">
-                                            ${loop.index}
-                                    </a>
-                                </li>
-                            </c:forEach>
-                            <li class="page-item">
-                                <a class="${totalPages eq currentPage ? 'disabled page-link' : 'page-link'}"
-                                   href="/product?page=${currentPage + 1}${queryString}" aria-label="Next">
-                                    <span aria-hidden="true">&raquo;</span>
-                                </a>
-                            </li>
+                        <c:choose>
+                            <c:when test="${cursorMode}">
+                                <div class="pagination d-flex justify-content-center mt-5">
+                                    <li class="page-item">
+                                        <a class="page-link" href="/product?cursor=${queryString}">Trang đầu</a>
+                                    </li>
+                                    <li class="page-item">
+                                        <a class="${empty nextCursor ? 'disabled page-link' : 'page-link'}"
+                                           href="/product?cursor=${nextCursor}${queryString}" aria-label="Next">
+                                            <span aria-hidden="true">&raquo;</span>
+                                        </a>
+                                    </li>
+                                </div>
+                            </c:when>
+                            <c:otherwise>
+                                <div class="pagination d-flex justify-content-center mt-5">
+                                    <li class="page-item">
+                                        <a class="${1 eq currentPage ? 'disabled page-link' : 'page-link'}"
+                                           href="/product?page=${currentPage - 1}${queryString}" aria-label="Previous">
+                                            <span aria-hidden="true">&laquo;</span>
+                                        </a>
+                                    </li>
+                                    <c:choose>
+                                        <c:when test="${not empty totalPages}">
+                                            <c:forEach begin="1" end="${totalPages}" varStatus="loop">
+                                                <li class="page-item">
+                                                    <a class="${(loop.index) eq currentPage ? 'active page-link' : 'page-link'}"
+                                                       href="/product?page=${loop.index}${queryString}">
+                                                            ${loop.index}
+                                                    </a>
+                                                </li>
+                                            </c:forEach>
+                                        </c:when>
+                                        <c:otherwise>
+                                            <li class="page-item">
+                                                <a class="active page-link" href="/product?page=${currentPage}${queryString}">${currentPage}</a>
+                                            </li>
+                                        </c:otherwise>
+                                    </c:choose>
+                                    <li class="page-item">
+                                        <a class="${not hasNext ? 'disabled page-link' : 'page-link'}"
+                                           href="/product?page=${currentPage + 1}${queryString}" aria-label="Next">
+                                            <span aria-hidden="true">&raquo;</span>
+                                        </a>
+                                    </li>
 
-                        </div>
+                                </div>
+                            </c:otherwise>
+                        </c:choose>
                     </div>
                 </div>
             </div>
@@ -257,6 +257,10 @@
 
         searchParams.set('page', '1');
         searchParams.set('sort', sortValue);
+        // keyset mode: filters changed, so start again from the first cursor page
+        if (searchParams.has('cursor')) {
+            searchParams.set('cursor', '');
+        }
 
         searchParams.delete('factory');
         searchParams.delete('target');
@@ -302,5 +306,24 @@
         const sort = params.get('sort');
         $(`input[value="${sort}"]`).prop('checked', true);
     }
+
+    // search suggestions (typeahead)
+    let suggestTimer = null;
+    $('input[list="search-suggestions"]').on('input', function () {
+        const q = $(this).val().trim();
+        clearTimeout(suggestTimer);
+        if (q.length === 0) {
+            $('#search-suggestions').empty();
+            return;
+        }
+        suggestTimer = setTimeout(function () {
+            $.getJSON('/search/suggest', {q: q}, function (suggestions) {
+                const datalist = $('#search-suggestions').empty();
+                suggestions.forEach(function (value) {
+                    datalist.append($('<option>').attr('value', value));
+                });
+            });
+        }, 150);
+    });
 })(jQuery);
 
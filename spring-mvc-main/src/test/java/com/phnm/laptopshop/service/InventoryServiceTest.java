@@ -0,0 +1,155 @@
+package com.phnm.laptopshop.service;
+
+import com.phnm.laptopshop.domain.Order;
+import com.phnm.laptopshop.domain.OrderDetail;
+import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.repository.ProductRepository;
+import com.phnm.laptopshop.service.checkout.CheckoutAdmission;
+import com.phnm.laptopshop.service.inventory.HotStock;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final HotStock hotStock = mock(HotStock.class);
+    private final CheckoutAdmission checkoutAdmission = mock(CheckoutAdmission.class);
+    private final InventoryService inventoryService = new InventoryService(
+            productRepository, jdbcTemplate, mock(NamedParameterJdbcTemplate.class), mock(TransactionTemplate.class),
+            hotStock, checkoutAdmission, 15);
+
+    @BeforeEach
+    void setUp() {
+        // reserve/restock đăng ký việc cập nhật bộ đếm sau commit, như khi chạy trong transaction đặt hàng
+        TransactionSynchronizationManager.initSynchronization();
+        when(hotStock.mightHave(anyLong(), anyLong())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void reservesLinesInProductIdOrderAndTakesHotStockOnlyAfterCommit() {
+        when(productRepository.reserveStock(anyLong(), anyLong())).thenReturn(1);
+
+        inventoryService.reserve(List.of(line(9, 1), line(2, 3)));
+
+        InOrder order = inOrder(productRepository);
+        order.verify(productRepository).reserveStock(2, 3);
+        order.verify(productRepository).reserveStock(9, 1);
+        verify(hotStock, never()).take(anyLong(), anyLong());
+
+        commit();
+        verify(hotStock).take(2, 3);
+        verify(hotStock).take(9, 1);
+    }
+
+    @Test
+    void conditionalUpdateMissingRowsMeansOutOfStockAndResyncsCounter() {
+        when(productRepository.reserveStock(2, 3)).thenReturn(0);
+        when(productRepository.findQuantityById(2)).thenReturn(1L);
+
+        assertThatThrownBy(() -> inventoryService.reserve(List.of(line(2, 3), line(9, 1))))
+                .isInstanceOf(OutOfStockException.class);
+
+        verify(hotStock).reset(2, 1);
+        verify(productRepository, never()).reserveStock(eq(9L), anyLong());
+    }
+
+    @Test
+    void rejectsNonPositiveQuantitiesBeforeReservingAnyLine() {
+        assertThatThrownBy(() -> inventoryService.reserve(List.of(line(2, 1), line(9, -5))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.reserve(List.of(line(2, 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(productRepository, never()).reserveStock(anyLong(), anyLong());
+    }
+
+    @Test
+    void hotStockCounterRejectsBeforeTouchingTheDatabase() {
+        when(hotStock.mightHave(2, 3)).thenReturn(false);
+
+        assertThatThrownBy(() -> inventoryService.reserve(List.of(line(2, 3))))
+                .isInstanceOf(OutOfStockException.class);
+
+        verify(productRepository, never()).reserveStock(anyLong(), anyLong());
+    }
+
+    @Test
+    void confirmKeepsHeldStockWhenTheReservationStillExists() {
+        when(jdbcTemplate.update(startsWith("delete from inventory_reservations"), eq(10L))).thenReturn(1);
+
+        inventoryService.confirm(order(10, line(2, 3)));
+
+        verify(productRepository, never()).reserveStock(anyLong(), anyLong());
+    }
+
+    @Test
+    void confirmReservesAgainWhenTheReservationHasExpired() {
+        when(jdbcTemplate.update(startsWith("delete from inventory_reservations"), eq(10L))).thenReturn(0);
+        when(productRepository.reserveStock(2, 3)).thenReturn(0);
+        when(productRepository.findQuantityById(2)).thenReturn(0L);
+
+        assertThatThrownBy(() -> inventoryService.confirm(order(10, line(2, 3))))
+                .isInstanceOf(OutOfStockException.class);
+    }
+
+    @Test
+    void restockMergesLinesPerProductAndReturnsCountersAfterCommit() {
+        inventoryService.restock(List.of(line(2, 1), line(9, 4), line(2, 2)));
+
+        verify(productRepository).releaseStock(2, 3);
+        verify(productRepository).releaseStock(9, 4);
+
+        commit();
+        verify(hotStock).give(2, 3);
+        verify(checkoutAdmission).returnTokens(9, 4);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+
+    private static Order order(long id, OrderDetail... lines) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderDetails(List.of(lines));
+        return order;
+    }
+
+    private static OrderDetail line(long productId, long quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        product.setName("Laptop " + productId);
+        OrderDetail orderDetail = new OrderDetail();
+        orderDetail.setProduct(product);
+        orderDetail.setQuantity(quantity);
+        return orderDetail;
+    }
+}
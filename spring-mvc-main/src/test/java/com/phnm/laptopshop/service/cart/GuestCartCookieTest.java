@@ -0,0 +1,101 @@
+package com.phnm.laptopshop.service.cart;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GuestCartCookieTest {
+
+    private final GuestCartCookie guestCartCookie = new GuestCartCookie("test-secret");
+
+    @Test
+    void readsBackWhatWasWrittenInInsertionOrder() {
+        Map<Long, Long> lines = new LinkedHashMap<>();
+        lines.put(7L, 2L);
+        lines.put(3L, 1L);
+
+        Cookie cookie = write(guestCartCookie, lines);
+
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(cookie.getPath()).isEqualTo("/");
+        assertThat(read(guestCartCookie, cookie.getValue())).containsExactly(Map.entry(7L, 2L), Map.entry(3L, 1L));
+    }
+
+    @Test
+    void rejectsPayloadChangedWithoutResigning() {
+        String value = write(guestCartCookie, Map.of(7L, 1L)).getValue();
+        String signature = value.substring(value.indexOf('.') + 1);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("7:999".getBytes(StandardCharsets.UTF_8)) + "." + signature;
+
+        assertThat(read(guestCartCookie, forged)).isEmpty();
+    }
+
+    @Test
+    void rejectsChangedSignature() {
+        String value = write(guestCartCookie, Map.of(7L, 1L)).getValue();
+        char last = value.charAt(value.length() - 1);
+        String tampered = value.substring(0, value.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThat(read(guestCartCookie, tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsCookieSignedWithAnotherSecret() {
+        String value = write(new GuestCartCookie("other-secret"), Map.of(7L, 1L)).getValue();
+
+        assertThat(read(guestCartCookie, value)).isEmpty();
+    }
+
+    @Test
+    void ignoresMissingOrMalformedCookies() {
+        assertThat(guestCartCookie.read(new MockHttpServletRequest())).isEmpty();
+        assertThat(read(guestCartCookie, "")).isEmpty();
+        assertThat(read(guestCartCookie, "no-signature")).isEmpty();
+        assertThat(read(guestCartCookie, ".onlysignature")).isEmpty();
+    }
+
+    @Test
+    void dropsNonPositiveQuantitiesAndCapsLineCount() {
+        Map<Long, Long> lines = new LinkedHashMap<>();
+        lines.put(1L, 2L);
+        lines.put(2L, 0L);
+        lines.put(3L, -4L);
+        for (long productId = 100; productId < 100 + GuestCartCookie.MAX_LINES + 10; productId++) {
+            lines.put(productId, 1L);
+        }
+
+        Map<Long, Long> read = read(guestCartCookie, write(guestCartCookie, lines).getValue());
+
+        assertThat(read).hasSize(GuestCartCookie.MAX_LINES);
+        assertThat(read).containsEntry(1L, 2L).doesNotContainKeys(2L, 3L);
+    }
+
+    @Test
+    void writingAnEmptyCartExpiresTheCookie() {
+        Cookie cookie = write(guestCartCookie, Map.of());
+
+        assertThat(cookie.getMaxAge()).isZero();
+        assertThat(cookie.getValue()).isEmpty();
+    }
+
+    private static Cookie write(GuestCartCookie guestCartCookie, Map<Long, Long> lines) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        guestCartCookie.write(response, lines);
+        return response.getCookie(GuestCartCookie.COOKIE_NAME);
+    }
+
+    private static Map<Long, Long> read(GuestCartCookie guestCartCookie, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(GuestCartCookie.COOKIE_NAME, value));
+        return guestCartCookie.read(request);
+    }
+}
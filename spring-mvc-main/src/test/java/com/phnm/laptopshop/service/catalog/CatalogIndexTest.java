@@ -0,0 +1,126 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.Product;
+import com.phnm.laptopshop.domain.dto.ProductCriteriaDTO;
+import com.phnm.laptopshop.service.pagination.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogIndexTest {
+
+    private CatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogIndex();
+        index.rebuild(List.of(
+                product(1, "DELL", "GAMING", 25000000, 5),
+                product(2, "ASUS", "GAMING", 12000000, 9),
+                product(3, "DELL", "VAN-PHONG", 9000000, 1),
+                product(4, "LENOVO", "VAN-PHONG", 15000000, 9),
+                product(5, "ASUS", "MONG-NHE", 18000000, 0)));
+    }
+
+    @Test
+    void emptyCriteriaMatchesEveryProductInIdOrder() {
+        CatalogIndex.IdPage page = index.query(new ProductCriteriaDTO(), CatalogIndex.SortOrder.ID_ASC, 0, 10);
+
+        assertThat(page.ids()).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(page.total()).isEqualTo(5);
+    }
+
+    @Test
+    void valuesOfOneFilterAreOredAndFiltersAreAnded() {
+        ProductCriteriaDTO criteria = criteria(List.of("DELL", "ASUS"), List.of("GAMING"), null);
+
+        assertThat(index.query(criteria, CatalogIndex.SortOrder.ID_ASC, 0, 10).ids()).containsExactly(1L, 2L);
+        assertThat(index.count(criteria)).isEqualTo(2);
+    }
+
+    @Test
+    void priceRangesIncludeBothBounds() {
+        ProductCriteriaDTO criteria = criteria(null, null, List.of("10-15-trieu"));
+
+        assertThat(index.query(criteria, CatalogIndex.SortOrder.ID_ASC, 0, 10).ids()).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void unknownFilterValuesMatchNothing() {
+        assertThat(index.count(criteria(List.of("APPLE"), null, null))).isZero();
+    }
+
+    @Test
+    void sortsByPriceAndBySoldWithIdAsTieBreaker() {
+        ProductCriteriaDTO all = new ProductCriteriaDTO();
+
+        assertThat(index.query(all, CatalogIndex.SortOrder.PRICE_ASC, 0, 10).ids()).containsExactly(3L, 2L, 4L, 5L, 1L);
+        assertThat(index.query(all, CatalogIndex.SortOrder.PRICE_DESC, 0, 10).ids()).containsExactly(1L, 5L, 4L, 2L, 3L);
+        assertThat(index.query(all, CatalogIndex.SortOrder.SOLD_DESC, 0, 10).ids()).containsExactly(4L, 2L, 1L, 3L, 5L);
+        assertThat(index.query(all, CatalogIndex.SortOrder.NEWEST, 0, 10).ids()).containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void offsetPagesThroughMatchesOnly() {
+        ProductCriteriaDTO criteria = criteria(null, List.of("GAMING", "VAN-PHONG"), null);
+
+        CatalogIndex.IdPage page = index.query(criteria, CatalogIndex.SortOrder.PRICE_ASC, 2, 2);
+
+        assertThat(page.ids()).containsExactly(4L, 1L);
+        assertThat(page.total()).isEqualTo(4);
+    }
+
+    @Test
+    void addSoldReordersBestSellers() {
+        index.addSold(5, 20);
+
+        assertThat(index.query(new ProductCriteriaDTO(), CatalogIndex.SortOrder.SOLD_DESC, 0, 2).ids())
+                .containsExactly(5L, 4L);
+    }
+
+    @Test
+    void putMovesProductBetweenBitmapsAndRemoveDropsIt() {
+        index.put(product(3, "ASUS", "GAMING", 9000000, 1));
+        index.remove(2);
+
+        assertThat(index.query(criteria(List.of("ASUS"), null, null), CatalogIndex.SortOrder.ID_ASC, 0, 10).ids())
+                .containsExactly(3L, 5L);
+        assertThat(index.count(criteria(List.of("DELL"), null, null))).isEqualTo(1);
+        assertThat(index.count(new ProductCriteriaDTO())).isEqualTo(4);
+    }
+
+    @Test
+    void queryAfterResumesAfterTheCursor() {
+        ProductCriteriaDTO all = new ProductCriteriaDTO();
+
+        assertThat(index.queryAfter(all, CatalogIndex.SortOrder.PRICE_ASC, new KeysetCursor(12000000, 2), 2))
+                .containsExactly(4L, 5L);
+        assertThat(index.queryAfter(all, CatalogIndex.SortOrder.SOLD_DESC, new KeysetCursor(9, 4), 2))
+                .containsExactly(2L, 1L);
+        assertThat(index.queryAfter(all, CatalogIndex.SortOrder.ID_ASC, KeysetCursor.ofId(3), 10))
+                .containsExactly(4L, 5L);
+    }
+
+    private static ProductCriteriaDTO criteria(List<String> factories, List<String> targets, List<String> prices) {
+        ProductCriteriaDTO criteria = new ProductCriteriaDTO();
+        criteria.setFactory(Optional.ofNullable(factories));
+        criteria.setTarget(Optional.ofNullable(targets));
+        criteria.setPrice(Optional.ofNullable(prices));
+        return criteria;
+    }
+
+    private static Product product(long id, String factory, String target, double price, long sold) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Laptop " + id);
+        product.setFactory(factory);
+        product.setTarget(target);
+        product.setPrice(price);
+        product.setSold(sold);
+        return product;
+    }
+}
@@ -0,0 +1,89 @@
+package com.phnm.laptopshop.service.catalog;
+
+import com.phnm.laptopshop.domain.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+        index.rebuild(List.of(
+                product(1, "ASUS Vivobook 15", "ASUS", "Mỏng nhẹ văn phòng"),
+                product(2, "HP Victus 16", "HP", "Laptop gaming đồ họa"),
+                product(3, "Dell Inspiron 14", "DELL", "Máy tính văn phòng bền bỉ"),
+                product(4, "Văn phòng Pro", "LENOVO", "Bàn phím tốt")));
+    }
+
+    @Test
+    void matchesWithoutDiacritics() {
+        assertThat(index.search("do hoa", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("ĐỒ HỌA", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void toleratesATypoAboveMinimumCoverage() {
+        // vivobok: 4/5 trigram có trong "vivobook", đạt ngưỡng 0.7
+        assertThat(index.search("vivobok", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void rejectsMatchesBelowMinimumCoverage() {
+        // vivoxxxx: chỉ 2/5 trigram khớp
+        CatalogIndex.IdPage page = index.search("vivoxxxx", 0, 10);
+
+        assertThat(page.ids()).isEmpty();
+        assertThat(page.total()).isZero();
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertThat(index.search("van phong", 0, 10).ids()).containsExactly(4L, 1L, 3L);
+    }
+
+    @Test
+    void pagesThroughRankedResults() {
+        CatalogIndex.IdPage page = index.search("van phong", 1, 1);
+
+        assertThat(page.ids()).containsExactly(1L);
+        assertThat(page.total()).isEqualTo(3);
+    }
+
+    @Test
+    void shortKeywordsMatchBySubstring() {
+        assertThat(index.search("hp", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("as", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("zz", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void blankKeywordReturnsNothing() {
+        assertThat(index.search("  ", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void removeAndPutKeepPostingsInSync() {
+        index.remove(4);
+        index.put(product(3, "Dell Latitude 14", "DELL", "Doanh nhân"));
+
+        assertThat(index.search("van phong", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("latitude", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search("inspiron", 0, 10).ids()).isEmpty();
+    }
+
+    private static Product product(long id, String name, String factory, String shortDesc) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setFactory(factory);
+        product.setShortDesc(shortDesc);
+        return product;
+    }
+}
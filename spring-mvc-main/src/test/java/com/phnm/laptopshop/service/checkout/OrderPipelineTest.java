@@ -0,0 +1,159 @@
+package com.phnm.laptopshop.service.checkout;
+
+import com.phnm.laptopshop.domain.Order;
+import com.phnm.laptopshop.service.inventory.OutOfStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderPipelineTest {
+
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private OrderPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.close();
+        requests.shutdownNow();
+    }
+
+    @Test
+    void groupsQueuedCommandsIntoBatchesOfAtMostMaxBatchSize() throws Exception {
+        pipeline = new OrderPipeline(completeAll(), 10, 3, 0);
+        List<Future<Order>> results = submitAll(5);
+        awaitQueued(5);
+
+        pipeline.start();
+
+        for (Future<Order> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(batchSizes).containsExactly(3, 2);
+        OrderPipeline.Metrics metrics = pipeline.getMetrics();
+        assertThat(metrics.batches()).isEqualTo(2);
+        assertThat(metrics.orders()).isEqualTo(5);
+        assertThat(metrics.maxBatchSize()).isEqualTo(3);
+    }
+
+    @Test
+    void rethrowsTheErrorOfOneCommandWithoutFailingTheOthers() throws Exception {
+        pipeline = new OrderPipeline(batch -> {
+            batchSizes.add(batch.size());
+            batch.get(0).result().completeExceptionally(new OutOfStockException("Laptop 1"));
+            for (int i = 1; i < batch.size(); i++) {
+                batch.get(i).result().complete(new Order());
+            }
+        }, 10, 10, 0);
+        List<Future<Order>> results = submitAll(1);
+        awaitQueued(1);
+        results.addAll(submitAll(1));
+        awaitQueued(2);
+
+        pipeline.start();
+
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(OutOfStockException.class);
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void failsEveryCommandOfABatchWhoseCommitThrows() {
+        IllegalStateException failure = new IllegalStateException("commit failed");
+        pipeline = new OrderPipeline(batch -> {
+            throw failure;
+        }, 10, 10, 0);
+        List<Future<Order>> results = submitAll(3);
+        awaitQueued(3);
+
+        pipeline.start();
+
+        for (Future<Order> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        }
+    }
+
+    @Test
+    void failsCommandsTheCommitterForgotToComplete() {
+        pipeline = new OrderPipeline(batch -> {
+        }, 10, 10, 0);
+        List<Future<Order>> results = submitAll(1);
+        awaitQueued(1);
+
+        pipeline.start();
+
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not completed");
+    }
+
+    @Test
+    void rejectsCommandsWhenTheQueueIsFull() {
+        pipeline = new OrderPipeline(completeAll(), 1, 10, 0);
+        submitAll(1);
+        awaitQueued(1);
+
+        assertThatThrownBy(() -> pipeline.submit(command())).isInstanceOf(CheckoutBusyException.class);
+        pipeline.start();
+    }
+
+    @Test
+    void closeCommitsQueuedCommandsThenRejectsNewOnes() throws Exception {
+        pipeline = new OrderPipeline(completeAll(), 10, 10, 0);
+        List<Future<Order>> results = submitAll(2);
+        awaitQueued(2);
+
+        pipeline.start();
+        pipeline.close();
+
+        for (Future<Order> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThatThrownBy(() -> pipeline.submit(command())).isInstanceOf(CheckoutBusyException.class);
+    }
+
+    private Consumer<List<OrderCommand>> completeAll() {
+        return batch -> {
+            batchSizes.add(batch.size());
+            for (OrderCommand command : batch) {
+                command.result().complete(new Order());
+            }
+        };
+    }
+
+    private List<Future<Order>> submitAll(int count) {
+        List<Future<Order>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(requests.submit(() -> pipeline.submit(command())));
+        }
+        return results;
+    }
+
+    // Luồng ghi chưa chạy nên lệnh nằm lại trong hàng đợi; chờ đủ số lệnh để lô có kích thước xác định
+    private void awaitQueued(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getMetrics().queued() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Commands were not queued in time");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static OrderCommand command() {
+        return OrderCommand.of(null, "Nguyễn Văn A", "Hà Nội", "0900000000", "Chờ xử lý", "COD", true);
+    }
+}
@@ -0,0 +1,69 @@
+package com.phnm.laptopshop.service.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderStatusTransitionsTest {
+
+    @Test
+    void bulkTransitionsOnlyMoveOrdersForward() {
+        assertThat(OrderStatusTransitions.isAllowed("Chờ xử lý", "Đang vận chuyển")).isTrue();
+        assertThat(OrderStatusTransitions.isAllowed("Đã thanh toán", "Đang vận chuyển")).isTrue();
+        assertThat(OrderStatusTransitions.isAllowed("Đang vận chuyển", "Hoàn thành")).isTrue();
+
+        assertThat(OrderStatusTransitions.isAllowed("Hoàn thành", "Chờ xử lý")).isFalse();
+        assertThat(OrderStatusTransitions.isAllowed("Chờ xử lý", "Hoàn thành")).isFalse();
+    }
+
+    @Test
+    void bulkTransitionsNeverTouchStock() {
+        for (Map.Entry<String, List<String>> transition : OrderStatusTransitions.all().entrySet()) {
+            assertThat(transition.getValue()).doesNotContain(OrderStatusTransitions.CANCELLED);
+        }
+        assertThat(OrderStatusTransitions.isAllowed("Chờ thanh toán", "Đang vận chuyển")).isFalse();
+    }
+
+    @Test
+    void singleOrderTableIncludesBulkStepsAndCancellation() {
+        for (Map.Entry<String, List<String>> transition : OrderStatusTransitions.all().entrySet()) {
+            for (String to : transition.getValue()) {
+                assertThat(OrderStatusTransitions.isAllowedSingle(transition.getKey(), to)).isTrue();
+            }
+        }
+        assertThat(OrderStatusTransitions.isAllowedSingle("Chờ thanh toán", "Hủy bỏ")).isTrue();
+        assertThat(OrderStatusTransitions.isAllowedSingle("Thiếu hàng", "Hủy bỏ")).isTrue();
+    }
+
+    @Test
+    void heldVnpayOrderCanOnlyBeCancelledByHand() {
+        assertThat(OrderStatusTransitions.targetsOf("Chờ thanh toán")).containsExactly("Hủy bỏ");
+        assertThat(OrderStatusTransitions.isAllowedSingle("Chờ thanh toán", "Đã thanh toán")).isFalse();
+    }
+
+    @Test
+    void tablesCannotBeModifiedByCallers() {
+        Map<String, List<String>> all = OrderStatusTransitions.all();
+
+        assertThatThrownBy(() -> all.put("Hoàn thành", List.of("Chờ xử lý")))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> all.get("Chờ xử lý").add("Hủy bỏ"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> OrderStatusTransitions.targetsOf("Chờ xử lý").clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void finalAndUnknownStatusesHaveNoTargets() {
+        assertThat(OrderStatusTransitions.targetsOf("Hoàn thành")).isEmpty();
+        assertThat(OrderStatusTransitions.targetsOf("Hủy bỏ")).isEmpty();
+        assertThat(OrderStatusTransitions.targetsOf("bất kỳ")).isEmpty();
+        assertThat(OrderStatusTransitions.targetsOf(null)).isEmpty();
+        assertThat(OrderStatusTransitions.isAllowedSingle(null, "Hủy bỏ")).isFalse();
+        assertThat(OrderStatusTransitions.isAllowed("Chờ xử lý", null)).isFalse();
+    }
+}
@@ -0,0 +1,47 @@
+package com.phnm.laptopshop.service.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeThenDecodeKeepsSortValueAndId() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(15990000.5, 42).encode());
+
+        assertThat(cursor).isNotNull();
+        assertThat(cursor.getSortValue()).isEqualTo(15990000.5);
+        assertThat(cursor.getId()).isEqualTo(42);
+    }
+
+    @Test
+    void idOnlyCursorRoundTrips() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.ofId(7).encode());
+
+        assertThat(cursor).isNotNull();
+        assertThat(cursor.getId()).isEqualTo(7);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        assertThat(new KeysetCursor(-1.0E10, Long.MAX_VALUE).encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void blankOrMalformedTokensDecodeToNull() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode(" ")).isNull();
+        assertThat(KeysetCursor.decode("not base64!")).isNull();
+        assertThat(KeysetCursor.decode(encodeRaw("no-separator"))).isNull();
+        assertThat(KeysetCursor.decode(encodeRaw("abc:12"))).isNull();
+        assertThat(KeysetCursor.decode(encodeRaw("1.5:xyz"))).isNull();
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
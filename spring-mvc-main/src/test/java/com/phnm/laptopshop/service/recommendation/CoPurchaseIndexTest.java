@@ -0,0 +1,70 @@
+package com.phnm.laptopshop.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoPurchaseIndexTest {
+
+    @Test
+    void countsPairsInBothDirectionsAndRanksByCount() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.record(new long[]{1, 2, 3});
+        index.record(new long[]{1, 2});
+        index.record(new long[]{1, 2});
+
+        assertThat(index.topNeighbours(1, 10)).containsExactly(2L, 3L);
+        assertThat(index.topNeighbours(2, 10)).containsExactly(1L, 3L);
+        assertThat(index.topNeighbours(3, 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.topNeighbours(1, 1)).containsExactly(2L);
+    }
+
+    @Test
+    void ignoresRepeatedProductsInOneBasket() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.record(new long[]{5, 5, 6});
+
+        assertThat(index.topNeighbours(5, 10)).containsExactly(6L);
+        assertThat(index.topNeighbours(6, 10)).containsExactly(5L);
+    }
+
+    @Test
+    void unknownProductHasNoNeighbours() {
+        assertThat(new CoPurchaseIndex().topNeighbours(42, 5)).isEmpty();
+    }
+
+    @Test
+    void keepsAtMostMaxNeighboursPerProduct() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        for (long other = 100; other < 100 + CoPurchaseIndex.MAX_NEIGHBOURS * 3; other++) {
+            index.record(new long[]{1, other});
+        }
+
+        assertThat(index.topNeighbours(1, 1000)).hasSize(CoPurchaseIndex.MAX_NEIGHBOURS);
+    }
+
+    @Test
+    void frequentPairSurvivesChurnOfOneOffPairs() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        for (int i = 0; i < 10; i++) {
+            index.record(new long[]{1, 2});
+        }
+        for (long other = 100; other < 150; other++) {
+            index.record(new long[]{1, other});
+        }
+
+        assertThat(index.topNeighbours(1, 1)).containsExactly(2L);
+    }
+
+    @Test
+    void rebuildReplacesPreviousCounts() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.record(new long[]{1, 2});
+
+        index.rebuild(List.of(new long[]{1, 3}));
+
+        assertThat(index.topNeighbours(1, 10)).containsExactly(3L);
+    }
+}